@@ -0,0 +1,52 @@
+package nl.s22k.chess.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.eval.EvalUtil;
+import nl.s22k.chess.eval.SEEUtil;
+import nl.s22k.chess.move.MoveUtil;
+
+/**
+ * Evaluation of all positions and the static exchange evaluation of all their captures. The eval-cache is not probed but the pawn- and
+ * material-caches are (and will hit), like in the search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EvalBenchmark {
+
+	@Benchmark
+	public int calculateScore(final Positions positions) {
+		int score = 0;
+		for (ChessBoard cb : positions.boards) {
+			score += EvalUtil.calculateScore(cb, positions.threadData);
+		}
+		return score;
+	}
+
+	@Benchmark
+	public int getSeeCaptureScore(final Positions positions) {
+		int score = 0;
+		for (int i = 0; i < positions.boards.length; i++) {
+			final ChessBoard cb = positions.boards[i];
+			for (int move : positions.moves[i]) {
+				if (MoveUtil.getAttackedPieceIndex(move) != 0) {
+					score += SEEUtil.getSeeCaptureScore(cb, move);
+				}
+			}
+		}
+		return score;
+	}
+
+}
@@ -0,0 +1,76 @@
+package nl.s22k.chess.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.move.MoveGenerator;
+import nl.s22k.chess.search.ThreadData;
+
+/**
+ * Move-generation and making/unmaking the legal moves of all positions
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MoveGeneratorBenchmark {
+
+	@Benchmark
+	public int generateMoves(final Positions positions) {
+		final ThreadData threadData = positions.threadData;
+		int count = 0;
+		for (ChessBoard cb : positions.boards) {
+			threadData.startPly();
+			MoveGenerator.generateMoves(threadData, cb);
+			count += countMoves(threadData);
+			threadData.endPly();
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int generateAttacks(final Positions positions) {
+		final ThreadData threadData = positions.threadData;
+		int count = 0;
+		for (ChessBoard cb : positions.boards) {
+			threadData.startPly();
+			MoveGenerator.generateAttacks(threadData, cb);
+			count += countMoves(threadData);
+			threadData.endPly();
+		}
+		return count;
+	}
+
+	@Benchmark
+	public long doAndUndoMove(final Positions positions) {
+		long keys = 0;
+		for (int i = 0; i < positions.boards.length; i++) {
+			final ChessBoard cb = positions.boards[i];
+			for (int move : positions.moves[i]) {
+				cb.doMove(move);
+				keys += cb.zobristKey;
+				cb.undoMove(move);
+			}
+		}
+		return keys;
+	}
+
+	private static int countMoves(final ThreadData threadData) {
+		int count = 0;
+		while (threadData.hasNext()) {
+			threadData.next();
+			count++;
+		}
+		return count;
+	}
+
+}
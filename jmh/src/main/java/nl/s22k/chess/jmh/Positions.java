@@ -0,0 +1,57 @@
+package nl.s22k.chess.jmh;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.engine.Bench;
+import nl.s22k.chess.move.MoveGenerator;
+import nl.s22k.chess.search.ThreadData;
+
+/**
+ * The positions of the bench-command which all benchmarks run over
+ */
+@State(Scope.Thread)
+public class Positions {
+
+	public ChessBoard[] boards;
+
+	// the legal moves of every position, captures first
+	public int[][] moves;
+
+	public ThreadData threadData;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		threadData = new ThreadData(0);
+		boards = new ChessBoard[Bench.FENS.length];
+		moves = new int[Bench.FENS.length][];
+		for (int i = 0; i < Bench.FENS.length; i++) {
+			boards[i] = new ChessBoard();
+			ChessBoardUtil.setFen(Bench.FENS[i], boards[i]);
+			moves[i] = getLegalMoves(boards[i], threadData);
+		}
+	}
+
+	private static int[] getLegalMoves(final ChessBoard cb, final ThreadData threadData) {
+		final int[] legalMoves = new int[256];
+		int count = 0;
+		threadData.startPly();
+		MoveGenerator.generateAttacks(threadData, cb);
+		MoveGenerator.generateMoves(threadData, cb);
+		while (threadData.hasNext()) {
+			final int move = threadData.next();
+			if (cb.isLegal(move)) {
+				legalMoves[count++] = move;
+			}
+		}
+		threadData.endPly();
+		return Arrays.copyOf(legalMoves, count);
+	}
+
+}
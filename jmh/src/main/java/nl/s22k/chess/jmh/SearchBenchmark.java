@@ -0,0 +1,69 @@
+package nl.s22k.chess.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
+import nl.s22k.chess.engine.UciOut;
+
+/**
+ * Fixed-depth searches of all positions after a new game. With 1 thread the number of nodes is the same for every invocation (the bench
+ * signature), so a change in time is a change in speed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+	@Param({ "9" })
+	public int depth;
+
+	@Param({ "1" })
+	public int threads;
+
+	@Param({ "16" })
+	public int hashMB;
+
+	private Engine engine;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		UciOut.noOutput = true;
+		engine = new Engine(threads);
+		engine.tt.setSizeMB(hashMB);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		engine.shutdown();
+	}
+
+	@Benchmark
+	public long search(final Positions positions) {
+		long nodes = 0;
+		for (ChessBoard cb : positions.boards) {
+			engine.newGame();
+			nodes += engine.search(cb, SearchLimits.depth(depth)).join().nodes;
+		}
+		return nodes;
+	}
+
+}
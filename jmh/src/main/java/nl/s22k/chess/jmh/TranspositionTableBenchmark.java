@@ -0,0 +1,98 @@
+package nl.s22k.chess.jmh;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.search.TTUtil;
+import nl.s22k.chess.search.TranspositionTable;
+
+/**
+ * Probes and stores of random keys in a table that is much larger than the cpu-caches. Half of the probed keys have been stored.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class TranspositionTableBenchmark {
+
+	private static final int KEYS = 1 << 16;
+
+	@Param({ TTUtil.STORAGE_HEAP, TTUtil.STORAGE_OFF_HEAP })
+	public String storage;
+
+	@Param({ TTUtil.LAYOUT_BUCKETS, TTUtil.LAYOUT_CLUSTERS })
+	public String layout;
+
+	@Param({ "22" })
+	public int power2Entries;
+
+	private Engine engine;
+	private TranspositionTable tt;
+	private final long[] keys = new long[KEYS];
+
+	@Setup(Level.Trial)
+	public void setup() {
+		engine = new Engine(1);
+		tt = engine.tt;
+		tt.setPower2Entries(power2Entries);
+		tt.setStorage(storage);
+		tt.setLayout(layout);
+		tt.init(true);
+
+		final SplittableRandom random = new SplittableRandom(0);
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = random.nextLong();
+		}
+		for (int i = 0; i < KEYS; i += 2) {
+			store(i);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		engine.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(KEYS)
+	public long probe() {
+		long values = 0;
+		for (int i = 0; i < KEYS; i++) {
+			values += tt.getValue(keys[i]);
+		}
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(KEYS)
+	public int store() {
+		int outcomes = 0;
+		for (int i = 0; i < KEYS; i++) {
+			outcomes += store(i);
+		}
+		return outcomes;
+	}
+
+	private int store(final int i) {
+		return tt.addValue(keys[i], i & 0xfff, 0, 1 + (i & 31), TTUtil.FLAG_LOWER, i & 0x3fffff, i & 0xfff);
+	}
+
+}
@@ -14,10 +14,12 @@ import static nl.s22k.chess.ChessConstants.WHITE;
 import nl.s22k.chess.engine.EngineConstants;
 import nl.s22k.chess.eval.EvalConstants;
 import nl.s22k.chess.eval.MaterialUtil;
+import nl.s22k.chess.eval.NNUEAccumulator;
 import nl.s22k.chess.eval.SchroderUtil;
 import nl.s22k.chess.move.MagicUtil;
 import nl.s22k.chess.move.MoveUtil;
 import nl.s22k.chess.move.StaticMoves;
+import nl.s22k.chess.search.TranspositionTable;
 
 public final class ChessBoard {
 
@@ -35,6 +37,15 @@ public final class ChessBoard {
 	public long moveCount;
 	public long passedPawnsAndOutposts;
 
+	// the tt of the engine this board is searched by, null if not searched
+	public TranspositionTable tt;
+	// the nnue-accumulators of the thread this board is searched by, null if the nnue is not used
+	public NNUEAccumulator accumulator;
+	// prefetch the tt-bucket of the child-position in doMove, set by the engine
+	public boolean ttPrefetch = EngineConstants.ENABLE_TT_PREFETCH;
+	// only written so the prefetch-load is not eliminated
+	private long prefetchedValue;
+
 	public final int[] kingIndex = new int[2];
 	public final int[] kingAttackersFlag = new int[2];
 	public final int[] pieceIndexes = new int[64];
@@ -47,6 +58,9 @@ public final class ChessBoard {
 	private final int[] castlingAndEpHistory = new int[EngineConstants.MAX_MOVES];
 	public final long[] zobristKeyHistory = new long[EngineConstants.MAX_MOVES];
 
+	// number of previous positions that are checked for repetitions
+	public static final int REPETITION_MOVES = 50;
+
 	@Override
 	public String toString() {
 		return ChessBoardUtil.toString(this);
@@ -84,6 +98,9 @@ public final class ChessBoard {
 
 	public void doNullMove() {
 		pushHistoryValues();
+		if (accumulator != null) {
+			accumulator.doNullMove();
+		}
 
 		zobristKey ^= Zobrist.sideToMove;
 		if (epIndex != 0) {
@@ -99,6 +116,9 @@ public final class ChessBoard {
 
 	public void undoNullMove() {
 		popHistoryValues();
+		if (accumulator != null) {
+			accumulator.undoMove();
+		}
 		changeSideToMove();
 
 		if (EngineConstants.ASSERT) {
@@ -125,6 +145,9 @@ public final class ChessBoard {
 		}
 
 		pushHistoryValues();
+		if (accumulator != null) {
+			accumulator.doMove(this, move);
+		}
 
 		zobristKey ^= Zobrist.piece[colorToMove][sourcePieceIndex][fromIndex] ^ Zobrist.piece[colorToMove][sourcePieceIndex][toIndex] ^ Zobrist.sideToMove;
 		if (epIndex != 0) {
@@ -215,6 +238,11 @@ public final class ChessBoard {
 			materialKey -= MaterialUtil.VALUES[colorToMoveInverse][attackedPieceIndex];
 		}
 
+		// the key is final: start loading the tt-bucket before the remaining updates are done
+		if (ttPrefetch && tt != null) {
+			prefetchedValue = tt.prefetch(zobristKey);
+		}
+
 		allPieces = pieces[colorToMove][ALL] | pieces[colorToMoveInverse][ALL];
 		emptySpaces = ~allPieces;
 		changeSideToMove();
@@ -266,6 +294,9 @@ public final class ChessBoard {
 		final int attackedPieceIndex = MoveUtil.getAttackedPieceIndex(move);
 
 		popHistoryValues();
+		if (accumulator != null) {
+			accumulator.undoMove();
+		}
 
 		// undo move
 		pieces[colorToMoveInverse][ALL] ^= fromToMask;
@@ -473,12 +504,9 @@ public final class ChessBoard {
 			return false;
 		}
 
-		final int moveCountMin = Math.max(0, moveCounter - 50);
+		final int moveCountMin = Math.max(0, moveCounter - REPETITION_MOVES);
 		for (int i = moveCounter - 2; i >= moveCountMin; i -= 2) {
 			if (zobristKey == zobristKeyHistory[i]) {
-				if (Statistics.ENABLED) {
-					Statistics.repetitions++;
-				}
 				return true;
 			}
 		}
@@ -81,10 +81,15 @@ public class ChessBoardTestUtil {
 
 		Assert.isTrue(phase == cb.phase);
 		Assert.isTrue(materialKey == cb.materialKey);
+
+		// nnue-accumulators
+		if (cb.accumulator != null) {
+			Assert.isTrue(cb.accumulator.isUpToDate(cb));
+		}
 	}
 
 	private static ChessBoard getHorizontalMirroredCb(ChessBoard cb) {
-		ChessBoard testCb = ChessBoardInstances.get(1);
+		ChessBoard testCb = new ChessBoard();
 
 		for (int color = ChessConstants.WHITE; color <= ChessConstants.BLACK; color++) {
 			for (int piece = ChessConstants.PAWN; piece <= ChessConstants.KING; piece++) {
@@ -99,7 +104,7 @@ public class ChessBoardTestUtil {
 	}
 
 	private static ChessBoard getVerticalMirroredCb(ChessBoard cb) {
-		ChessBoard testCb = ChessBoardInstances.get(1);
+		ChessBoard testCb = new ChessBoard();
 
 		for (int piece = ChessConstants.PAWN; piece <= ChessConstants.KING; piece++) {
 			testCb.pieces[WHITE][piece] = Util.mirrorVertical(cb.pieces[BLACK][piece]);
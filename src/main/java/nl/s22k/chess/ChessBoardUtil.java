@@ -12,7 +12,6 @@ import static nl.s22k.chess.ChessConstants.WHITE;
 
 import java.util.Arrays;
 
-import nl.s22k.chess.engine.UciOptions;
 import nl.s22k.chess.eval.EvalConstants;
 import nl.s22k.chess.eval.EvalUtil;
 import nl.s22k.chess.eval.MaterialUtil;
@@ -182,7 +181,9 @@ public class ChessBoardUtil {
 
 		// large arrays
 		System.arraycopy(source.pieceIndexes, 0, target.pieceIndexes, 0, source.pieceIndexes.length);
-		System.arraycopy(source.zobristKeyHistory, 0, target.zobristKeyHistory, 0, source.zobristKeyHistory.length);
+		// only the part of the history that is used by the repetition-check
+		final int historyStart = Math.max(0, source.moveCounter - ChessBoard.REPETITION_MOVES);
+		System.arraycopy(source.zobristKeyHistory, historyStart, target.zobristKeyHistory, historyStart, source.moveCounter - historyStart);
 
 		// multi-dimensional arrays
 		System.arraycopy(source.pieces[WHITE], 0, target.pieces[WHITE], 0, source.pieces[WHITE].length);
@@ -227,14 +228,6 @@ public class ChessBoardUtil {
 		Zobrist.setKey(cb);
 	}
 
-	public static long calculateTotalMoveCount() {
-		long totalMoveCount = 0;
-		for (int i = 0; i < UciOptions.threadCount; i++) {
-			totalMoveCount += ChessBoardInstances.get(i).moveCount;
-		}
-		return totalMoveCount;
-	}
-
 	public static String toString(ChessBoard cb) {
 		// TODO castling, EP, moves
 		StringBuilder sb = new StringBuilder();
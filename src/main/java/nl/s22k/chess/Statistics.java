@@ -1,69 +1,78 @@
 package nl.s22k.chess;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.stream.IntStream;
+import java.util.List;
+import java.util.stream.LongStream;
 
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.eval.EvalCacheUtil;
+import nl.s22k.chess.eval.MaterialCacheUtil;
+import nl.s22k.chess.eval.PawnCacheUtil;
 import nl.s22k.chess.eval.SEEUtil;
 import nl.s22k.chess.move.MoveUtil;
 import nl.s22k.chess.search.TTUtil;
 import nl.s22k.chess.search.ThreadData;
 
-public class Statistics {
+/**
+ * The search-counters of one search-thread. A thread only increments its own block so the counts are exact, the blocks of all threads are
+ * merged when the statistics are requested. Counting is switched on and off at runtime using uci 'debug on' and 'debug off'.
+ */
+public final class Statistics {
 
-	public static final boolean ENABLED = false;
+	// only changed between searches, the start of a search publishes it to the search-threads
+	public static boolean enabled;
 
-	public static long evalNodes, abNodes, seeNodes, pvNodes, cutNodes, allNodes, qNodes;
-	public static long ttHits, ttMisses;
-	public static int staleMateCount, mateCount;
-	public static int epCount, castleCount, promotionCount;
-	public static long pawnEvalCacheHits, pawnEvalCacheMisses;
-	public static long materialCacheMisses, materialCacheHits;
-	public static int bestMoveTT, bestMoveTTLower, bestMoveTTUpper, bestMoveCounter, bestMoveKiller1, bestMoveKiller2, bestMoveKillerEvasive1,
+	public long evalNodes, lazyEvals, ttEvals, abNodes, seeCalls, pvNodes, cutNodes, allNodes, qNodes;
+	public long ttHits, ttMisses;
+	public final long[] ttStores = new long[TTUtil.STORE_OUTCOMES];
+	public long staleMateCount, mateCount, draws;
+	public long pawnEvalCacheHits, pawnEvalCacheMisses;
+	public long materialCacheMisses, materialCacheHits;
+	public long bestMoveTT, bestMoveTTLower, bestMoveTTUpper, bestMoveCounter, bestMoveKiller1, bestMoveKiller2, bestMoveKillerEvasive1,
 			bestMoveKillerEvasive2, bestMoveOther, bestMovePromotion, bestMoveWinningCapture, bestMoveLosingCapture;
-	public static int repetitions, repetitionTests;
-	public static int checkExtensions;
-	public static int nullMoveHit, nullMoveMiss;
-	public static long evalCacheHits, evalCacheMisses;
-	public static final int[] razored = new int[10];
-	public static final int[] futile = new int[10];
-	public static final int[] staticNullMoved = new int[10];
-	public static final int[] lmped = new int[10];
-	public static final int[] failHigh = new int[64];
-
-	public static void reset() {
-
-		if (!ENABLED) {
-			return;
-		}
+	public long checkExtensions;
+	public long nullMoveHit, nullMoveMiss;
+	public long evalCacheHits, evalCacheMisses;
+	public final long[] razored = new long[10];
+	public final long[] futile = new long[10];
+	public final long[] staticNullMoved = new long[10];
+	public final long[] lmped = new long[10];
+	public final long[] failHigh = new long[64];
+
+	/**
+	 * Called by the search-thread itself when a search starts
+	 */
+	public void reset() {
+		Arrays.fill(ttStores, 0);
 		Arrays.fill(razored, 0);
 		Arrays.fill(futile, 0);
 		Arrays.fill(staticNullMoved, 0);
 		Arrays.fill(lmped, 0);
 		Arrays.fill(failHigh, 0);
 
-		bestMoveCounter = 0;
-		qNodes = 0;
-		pvNodes = 1; // so we never divide by zero
+		evalNodes = 0;
+		lazyEvals = 0;
+		ttEvals = 0;
+		abNodes = 0;
+		seeCalls = 0;
+		pvNodes = 0;
 		cutNodes = 0;
 		allNodes = 0;
-		pawnEvalCacheMisses = 0;
-		pawnEvalCacheHits = 0;
-		castleCount = 0;
-		epCount = 0;
-		evalNodes = 0;
+		qNodes = 0;
 		ttHits = 0;
 		ttMisses = 0;
 		staleMateCount = 0;
 		mateCount = 0;
-		abNodes = 0;
-		promotionCount = 0;
-		seeNodes = 0;
-		repetitions = 0;
-		nullMoveHit = 0;
-		nullMoveMiss = 0;
+		draws = 0;
+		pawnEvalCacheHits = 0;
+		pawnEvalCacheMisses = 0;
+		materialCacheMisses = 0;
+		materialCacheHits = 0;
 		bestMoveTT = 0;
 		bestMoveTTLower = 0;
 		bestMoveTTUpper = 0;
+		bestMoveCounter = 0;
 		bestMoveKiller1 = 0;
 		bestMoveKiller2 = 0;
 		bestMoveKillerEvasive1 = 0;
@@ -73,128 +82,186 @@ public class Statistics {
 		bestMoveWinningCapture = 0;
 		bestMoveLosingCapture = 0;
 		checkExtensions = 0;
-		repetitionTests = 0;
+		nullMoveHit = 0;
+		nullMoveMiss = 0;
 		evalCacheHits = 0;
 		evalCacheMisses = 0;
 	}
 
-	public static void print() {
-		if (!ENABLED) {
-			return;
-		}
-		long totalMoveCount = ChessBoardUtil.calculateTotalMoveCount();
-		System.out.println("AB-nodes      " + abNodes);
-		System.out.println("PV-nodes      " + pvNodes + " = 1/" + (pvNodes + cutNodes + allNodes) / pvNodes);
-		System.out.println("Cut-nodes     " + cutNodes);
-		printPercentage("Cut 1         ", failHigh[0], cutNodes - failHigh[0]);
-		printPercentage("Cut 2         ", failHigh[1], cutNodes - failHigh[1]);
-		printPercentage("Cut 3         ", failHigh[2], cutNodes - failHigh[2]);
-		System.out.println("All-nodes     " + allNodes);
-		System.out.println("Q-nodes       " + qNodes);
-		System.out.println("See-nodes     " + seeNodes);
-		System.out.println("Evaluated     " + evalNodes);
-		System.out.println("Moves         " + totalMoveCount);
-
-		ThreadData threadData = ThreadData.getInstance(0);
-		System.out.println("### Caches #######");
-		printPercentage("TT            ", ttHits, ttMisses);
-		System.out.println("usage         " + TTUtil.getUsagePercentage() / 10 + "%");
-		printPercentage("Eval          ", evalCacheHits, evalCacheMisses);
-		System.out.println("usage         " + Util.getUsagePercentage(threadData.evalCache) + "%");
-		printPercentage("Pawn eval     ", pawnEvalCacheHits, pawnEvalCacheMisses);
-		System.out.println("usage         " + Util.getUsagePercentage(threadData.pawnCache) + "%");
-		printPercentage("Material      ", materialCacheHits, materialCacheMisses);
-		System.out.println("usage         " + Util.getUsagePercentage(threadData.materialCache) + "%");
-
-		System.out.println("## Best moves #####");
-		System.out.println("TT            " + bestMoveTT);
-		System.out.println("TT-upper      " + bestMoveTTUpper);
-		System.out.println("TT-lower      " + bestMoveTTLower);
-		System.out.println("Win-cap       " + bestMoveWinningCapture);
-		System.out.println("Los-cap       " + bestMoveLosingCapture);
-		System.out.println("Promo         " + bestMovePromotion);
-		System.out.println("Killer1       " + bestMoveKiller1);
-		System.out.println("Killer2       " + bestMoveKiller2);
-		System.out.println("Killer1 evasi " + bestMoveKillerEvasive1);
-		System.out.println("Killer2 evasi " + bestMoveKillerEvasive2);
-		System.out.println("Counter       " + bestMoveCounter);
-		System.out.println("Other         " + bestMoveOther);
-
-		System.out.println("### Outcome #####");
-		System.out.println("Checkmate     " + mateCount);
-		System.out.println("Stalemate     " + staleMateCount);
-		System.out.println("Repetitions   " + repetitions + "(" + repetitionTests + ")");
-
-		System.out.println("### Extensions #####");
-		System.out.println("Check         " + checkExtensions);
-
-		System.out.println("### Pruning #####");
-		printPercentage("Null-move     ", nullMoveHit, nullMoveMiss);
-		printDepthTotals("Static nmp    ", staticNullMoved, false);
-		printDepthTotals("Razored       ", razored, false);
-		printDepthTotals("Futile        ", futile, false);
-		printDepthTotals("LMP           ", lmped, false);
+	private void add(final Statistics other) {
+		add(ttStores, other.ttStores);
+		add(razored, other.razored);
+		add(futile, other.futile);
+		add(staticNullMoved, other.staticNullMoved);
+		add(lmped, other.lmped);
+		add(failHigh, other.failHigh);
+
+		evalNodes += other.evalNodes;
+		lazyEvals += other.lazyEvals;
+		ttEvals += other.ttEvals;
+		abNodes += other.abNodes;
+		seeCalls += other.seeCalls;
+		pvNodes += other.pvNodes;
+		cutNodes += other.cutNodes;
+		allNodes += other.allNodes;
+		qNodes += other.qNodes;
+		ttHits += other.ttHits;
+		ttMisses += other.ttMisses;
+		staleMateCount += other.staleMateCount;
+		mateCount += other.mateCount;
+		draws += other.draws;
+		pawnEvalCacheHits += other.pawnEvalCacheHits;
+		pawnEvalCacheMisses += other.pawnEvalCacheMisses;
+		materialCacheMisses += other.materialCacheMisses;
+		materialCacheHits += other.materialCacheHits;
+		bestMoveTT += other.bestMoveTT;
+		bestMoveTTLower += other.bestMoveTTLower;
+		bestMoveTTUpper += other.bestMoveTTUpper;
+		bestMoveCounter += other.bestMoveCounter;
+		bestMoveKiller1 += other.bestMoveKiller1;
+		bestMoveKiller2 += other.bestMoveKiller2;
+		bestMoveKillerEvasive1 += other.bestMoveKillerEvasive1;
+		bestMoveKillerEvasive2 += other.bestMoveKillerEvasive2;
+		bestMoveOther += other.bestMoveOther;
+		bestMovePromotion += other.bestMovePromotion;
+		bestMoveWinningCapture += other.bestMoveWinningCapture;
+		bestMoveLosingCapture += other.bestMoveLosingCapture;
+		checkExtensions += other.checkExtensions;
+		nullMoveHit += other.nullMoveHit;
+		nullMoveMiss += other.nullMoveMiss;
+		evalCacheHits += other.evalCacheHits;
+		evalCacheMisses += other.evalCacheMisses;
 	}
 
-	private static void printDepthTotals(String message, int[] values, boolean printDetails) {
-		System.out.println(message + IntStream.of(values).sum());
-		if (printDetails) {
-			for (int i = 0; i < values.length; i++) {
-				if (values[i] != 0) {
-					System.out.println(i + " " + values[i]);
-				}
-			}
+	private static void add(final long[] values, final long[] otherValues) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] += otherValues[i];
 		}
 	}
 
-	private static void printPercentage(String message, long hitCount, long failCount) {
-		if (hitCount + failCount != 0) {
-			System.out.println(message + hitCount + "/" + (failCount + hitCount) + " (" + hitCount * 100 / (hitCount + failCount) + "%)");
+	/**
+	 * Sums the blocks of all search-threads. Should be called when the engine is not searching, otherwise the counts are not from the same
+	 * moment.
+	 */
+	public static Statistics merge(final Engine engine) {
+		final Statistics statistics = new Statistics();
+		for (int i = 0; i < engine.getThreadCount(); i++) {
+			statistics.add(engine.getThreadData(i).statistics);
 		}
+		return statistics;
+	}
+
+	public static List<String> getLines(final Engine engine) {
+		final Statistics s = merge(engine);
+		final List<String> lines = new ArrayList<>();
+		lines.add("nodes " + engine.getNodeCount() + " ab " + s.abNodes + " q " + s.qNodes + " eval " + s.evalNodes + " lazy-eval "
+				+ getPerNode(s.lazyEvals, s.evalNodes) + " see " + s.seeCalls);
+		lines.add("evals from tt " + getPerNode(s.ttEvals, s.ttEvals + s.evalNodes));
+		lines.add("node-types pv " + s.pvNodes + " cut " + s.cutNodes + " all " + s.allNodes);
+		lines.add("fail-high move 1 " + getPermill(s.failHigh[0], s.cutNodes) + " 2 " + getPermill(s.failHigh[1], s.cutNodes) + " 3 "
+				+ getPermill(s.failHigh[2], s.cutNodes) + " 4+ " + getPermill(LongStream.of(s.failHigh).skip(3).sum(), s.cutNodes) + " permill");
+
+		final ThreadData threadData = engine.getThreadData(0);
+		final long stores = s.ttStores[TTUtil.STORE_EMPTY] + s.ttStores[TTUtil.STORE_UPDATE] + s.ttStores[TTUtil.STORE_REPLACE];
+		lines.add("tt hits " + getHitRate(s.ttHits, s.ttMisses) + " usage " + engine.tt.getUsagePermill() + " permill");
+		lines.add("tt stores " + stores + " empty " + s.ttStores[TTUtil.STORE_EMPTY] + " update " + s.ttStores[TTUtil.STORE_UPDATE] + " replace "
+				+ s.ttStores[TTUtil.STORE_REPLACE] + " skipped " + s.ttStores[TTUtil.STORE_SKIPPED]);
+		lines.add("eval-cache entries " + threadData.evalCache.length / EvalCacheUtil.ENTRY_SIZE + " hits " + getHitRate(s.evalCacheHits, s.evalCacheMisses)
+				+ " usage " + EvalCacheUtil.getUsagePermill(threadData.evalCache) + " permill");
+		final long[] pawnCache = engine.getSharedPawnCache() == null ? threadData.pawnCache : engine.getSharedPawnCache();
+		lines.add((pawnCache == threadData.pawnCache ? "pawn-cache" : "shared-pawn-cache") + " entries " + pawnCache.length / PawnCacheUtil.ENTRY_SIZE
+				+ " hits " + getHitRate(s.pawnEvalCacheHits, s.pawnEvalCacheMisses) + " usage " + PawnCacheUtil.getUsagePermill(pawnCache) + " permill");
+		lines.add("material-cache entries " + threadData.materialCache.length / MaterialCacheUtil.ENTRY_SIZE + " hits "
+				+ getHitRate(s.materialCacheHits, s.materialCacheMisses) + " usage " + MaterialCacheUtil.getUsagePermill(threadData.materialCache)
+				+ " permill");
+
+		lines.add("best-move tt " + s.bestMoveTT + " tt-upper " + s.bestMoveTTUpper + " tt-lower " + s.bestMoveTTLower + " win-cap "
+				+ s.bestMoveWinningCapture + " los-cap " + s.bestMoveLosingCapture + " promo " + s.bestMovePromotion + " killer1 " + s.bestMoveKiller1
+				+ " killer2 " + s.bestMoveKiller2 + " killer1-evasive " + s.bestMoveKillerEvasive1 + " killer2-evasive " + s.bestMoveKillerEvasive2
+				+ " counter " + s.bestMoveCounter + " other " + s.bestMoveOther);
+		lines.add("outcome checkmate " + s.mateCount + " stalemate " + s.staleMateCount + " draw " + s.draws + " check-extensions "
+				+ s.checkExtensions);
+
+		lines.add("pruning null-move " + getHitRate(s.nullMoveHit, s.nullMoveMiss) + " static-null-move " + getPerNode(sum(s.staticNullMoved), s.abNodes)
+				+ " razored " + getPerNode(sum(s.razored), s.abNodes) + " futile " + getPerNode(sum(s.futile), s.abNodes) + " lmp "
+				+ getPerNode(sum(s.lmped), s.abNodes));
+		return lines;
 	}
 
-	public static void setBestMove(ChessBoard cb, int bestMove, int ttMove, long ttValue, int flag, int counterMove, int killer1Move, int killer2Move) {
-		if (!ENABLED) {
+	/**
+	 * Prints the merged statistics, for instance when the engine crashed
+	 */
+	public static void print(final Engine engine) {
+		if (!enabled) {
 			return;
 		}
+		for (String line : getLines(engine)) {
+			System.out.println(line);
+		}
+	}
+
+	private static long sum(final long[] values) {
+		return LongStream.of(values).sum();
+	}
+
+	private static long getPermill(final long count, final long total) {
+		return count * 1000 / Math.max(1, total);
+	}
+
+	private static String getHitRate(final long hitCount, final long missCount) {
+		return hitCount + "/" + (hitCount + missCount) + " (" + getPermill(hitCount, hitCount + missCount) / 10 + "%)";
+	}
+
+	private static String getPerNode(final long count, final long nodes) {
+		return count + " (" + getPermill(count, nodes) + " permill)";
+	}
+
+	public void addTTValue(final long ttValue) {
+		if (ttValue == 0) {
+			ttMisses++;
+		} else {
+			ttHits++;
+		}
+	}
+
+	public void setBestMove(ChessBoard cb, int bestMove, int ttMove, long ttValue, int flag, int counterMove, int killer1Move, int killer2Move) {
 		if (flag == TTUtil.FLAG_LOWER) {
-			Statistics.cutNodes++;
+			cutNodes++;
 		} else if (flag == TTUtil.FLAG_UPPER) {
-			Statistics.allNodes++;
+			allNodes++;
 		} else {
-			Statistics.pvNodes++;
+			pvNodes++;
 		}
 		if (bestMove == ttMove) {
 			if (TTUtil.getFlag(ttValue) == TTUtil.FLAG_LOWER) {
-				Statistics.bestMoveTTLower++;
+				bestMoveTTLower++;
 			} else if (TTUtil.getFlag(ttValue) == TTUtil.FLAG_UPPER) {
-				Statistics.bestMoveTTUpper++;
+				bestMoveTTUpper++;
 			} else {
-				Statistics.bestMoveTT++;
+				bestMoveTT++;
 			}
 		} else if (MoveUtil.isPromotion(bestMove)) {
-			Statistics.bestMovePromotion++;
+			bestMovePromotion++;
 		} else if (MoveUtil.getAttackedPieceIndex(bestMove) != 0) {
-			// slow but disabled when statistics are disabled
+			// slow but only called when statistics are enabled
 			if (SEEUtil.getSeeCaptureScore(cb, bestMove) < 0) {
-				Statistics.bestMoveLosingCapture++;
+				bestMoveLosingCapture++;
 			} else {
-				Statistics.bestMoveWinningCapture++;
+				bestMoveWinningCapture++;
 			}
 		} else if (bestMove == counterMove) {
-			Statistics.bestMoveCounter++;
+			bestMoveCounter++;
 		} else if (bestMove == killer1Move && cb.checkingPieces == 0) {
-			Statistics.bestMoveKiller1++;
+			bestMoveKiller1++;
 		} else if (bestMove == killer2Move && cb.checkingPieces == 0) {
-			Statistics.bestMoveKiller2++;
+			bestMoveKiller2++;
 		} else if (bestMove == killer1Move && cb.checkingPieces != 0) {
-			Statistics.bestMoveKillerEvasive1++;
+			bestMoveKillerEvasive1++;
 		} else if (bestMove == killer2Move && cb.checkingPieces != 0) {
-			Statistics.bestMoveKillerEvasive2++;
+			bestMoveKillerEvasive2++;
 		} else {
-			Statistics.bestMoveOther++;
+			bestMoveOther++;
 		}
-
 	}
 
 }
@@ -63,24 +63,29 @@ public class Util {
 		return getDistance(Long.numberOfTrailingZeros(sq1), Long.numberOfTrailingZeros(sq2));
 	}
 
-	public static int getUsagePercentage(long keys[]) {
+	/**
+	 * @return the permill of the (first 1000) entries of which the key, the first value of an entry, is set
+	 */
+	public static int getUsagePermill(final long[] cache, final int entrySize) {
+		final int entries = Math.min(1000, cache.length / entrySize);
 		int usage = 0;
-		for (int i = 0; i < 1000; i++) {
-			if (keys[i] != 0) {
+		for (int i = 0; i < entries; i++) {
+			if (cache[i * entrySize] != 0) {
 				usage++;
 			}
 		}
-		return usage / 10;
+		return usage * 1000 / entries;
 	}
 
-	public static int getUsagePercentage(int keys[]) {
+	public static int getUsagePermill(final int[] cache, final int entrySize) {
+		final int entries = Math.min(1000, cache.length / entrySize);
 		int usage = 0;
-		for (int i = 0; i < 1000; i++) {
-			if (keys[i] != 0) {
+		for (int i = 0; i < entries; i++) {
+			if (cache[i * entrySize] != 0) {
 				usage++;
 			}
 		}
-		return usage / 10;
+		return usage * 1000 / entries;
 	}
 
 	/**
@@ -5,33 +5,52 @@ import static nl.s22k.chess.ChessConstants.KING;
 import static nl.s22k.chess.ChessConstants.PAWN;
 import static nl.s22k.chess.ChessConstants.WHITE;
 
-import java.security.SecureRandom;
-
 public class Zobrist {
 
-	public static final long sideToMove;
+	public static final long DEFAULT_SEED = 22;
+
+	public static long seed;
+	public static long sideToMove;
 	public static final long[] castling = new long[16];
 	public static final long[] epIndex = new long[48];
 	public static final long[][][] piece = new long[2][7][64];
 
+	private static long randomState;
+
 	static {
-		SecureRandom r = new SecureRandom();
+		init(DEFAULT_SEED);
+	}
+
+	/**
+	 * Generates all keys using the given seed: the same seed always results in the same keys
+	 */
+	public static void init(final long seed) {
+		Zobrist.seed = seed;
+		randomState = seed;
 		for (int colorIndex = 0; colorIndex <= BLACK; colorIndex++) {
 			for (int pieceIndex = 0; pieceIndex <= KING; pieceIndex++) {
 				for (int square = 0; square < 64; square++) {
-					piece[colorIndex][pieceIndex][square] = r.nextLong();
+					piece[colorIndex][pieceIndex][square] = nextLong();
 				}
 			}
 		}
 		for (int i = 0; i < castling.length; i++) {
-			castling[i] = r.nextLong();
+			castling[i] = nextLong();
 		}
 
 		// skip first item: contains only zeros, default value and has no effect when xorring
 		for (int i = 1; i < epIndex.length; i++) {
-			epIndex[i] = r.nextLong();
+			epIndex[i] = nextLong();
 		}
-		sideToMove = r.nextLong();
+		sideToMove = nextLong();
+	}
+
+	// splitmix64
+	private static long nextLong() {
+		long z = randomState += 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
 	}
 
 	public static void setKey(final ChessBoard cb) {
@@ -69,4 +88,25 @@ public class Zobrist {
 		}
 	}
 
+	/**
+	 * Identifies the set of keys so hash-dependent data can be validated
+	 */
+	public static long getFingerprint() {
+		long fingerprint = sideToMove;
+		for (int colorIndex = 0; colorIndex <= BLACK; colorIndex++) {
+			for (int pieceIndex = 0; pieceIndex <= KING; pieceIndex++) {
+				for (int square = 0; square < 64; square++) {
+					fingerprint = Long.rotateLeft(fingerprint, 7) ^ piece[colorIndex][pieceIndex][square];
+				}
+			}
+		}
+		for (int i = 0; i < castling.length; i++) {
+			fingerprint = Long.rotateLeft(fingerprint, 7) ^ castling[i];
+		}
+		for (int i = 0; i < epIndex.length; i++) {
+			fingerprint = Long.rotateLeft(fingerprint, 7) ^ epIndex[i];
+		}
+		return fingerprint;
+	}
+
 }
@@ -0,0 +1,61 @@
+package nl.s22k.chess.engine;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.Zobrist;
+
+/**
+ * Searches a fixed set of positions to a fixed depth with 1 thread, the default zobrist-keys and empty tables. The total number of nodes
+ * is a signature of the search and evaluation (it only changes when they change), the nps is a speed-index of the host.
+ */
+public class Bench {
+
+	public static final int DEFAULT_DEPTH = 11;
+	private static final int HASH_MB = 16;
+
+	// openings, middlegames (with many captures and checks) and endgames, do not change them!
+	public static final String[] FENS = { //
+			"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", //
+			"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", //
+			"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", //
+			"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", //
+			"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", //
+			"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", //
+			"2rq1rk1/pp1bppbp/2np1np1/8/3NP3/1BN1BP2/PPPQ2PP/2KR3R b - - 0 11", //
+			"r1bq1rk1/pp2bppp/2n2n2/3p4/3P4/2NBBN2/PP3PPP/R2Q1RK1 w - - 0 11", //
+			"rnb1kq1r/1p1n1pp1/p3p1P1/3pP3/3p3N/2NQ4/PPP2P2/2KR1B1R w kq - 0 15", //
+			"8/1p3pk1/1q1P1bp1/4P3/n1p1P3/P5P1/1PBQ2K1/8 w - - 0 50", //
+			"8/2p2p2/3p1k2/1p1P2p1/5P1p/4K2P/p4P2/N7 b - - 1 82", //
+			"8/5pk1/6p1/8/3R4/6P1/5PK1/3r4 w - - 0 40" };
+
+	/**
+	 * Uses its own engine so the tables of the normal engine are kept. The zobrist-keys must have the default seed.
+	 */
+	public static void run(final int depth) {
+		if (Zobrist.seed != Zobrist.DEFAULT_SEED) {
+			throw new RuntimeException("Bench needs the default zobrist-seed " + Zobrist.DEFAULT_SEED + " instead of " + Zobrist.seed);
+		}
+
+		final Engine engine = new Engine(1);
+		engine.tt.setSizeMB(HASH_MB);
+		final ChessBoard cb = new ChessBoard();
+
+		long totalNodes = 0;
+		long totalTimeMs = 0;
+		for (int i = 0; i < FENS.length; i++) {
+			ChessBoardUtil.setFen(FENS[i], cb);
+			engine.newGame();
+			final SearchResult result = engine.search(cb, SearchLimits.depth(depth)).join();
+			totalNodes += result.nodes;
+			totalTimeMs += result.timeMs;
+			System.out.println(String.format("position %2d/%d nodes %9d time %6d ms", i + 1, FENS.length, result.nodes, result.timeMs));
+		}
+		engine.shutdown();
+
+		System.out.println("===========================");
+		System.out.println("Total time (ms) : " + totalTimeMs);
+		System.out.println("Nodes searched  : " + totalNodes);
+		System.out.println("Nodes/second    : " + totalNodes * 1000 / Math.max(totalTimeMs, 1));
+	}
+
+}
@@ -0,0 +1,561 @@
+package nl.s22k.chess.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.eval.PawnCacheUtil;
+import nl.s22k.chess.search.NodeCounters;
+import nl.s22k.chess.search.RangeTask;
+import nl.s22k.chess.search.SearchThread;
+import nl.s22k.chess.search.TTUtil;
+import nl.s22k.chess.search.ThreadData;
+import nl.s22k.chess.search.TimeManager;
+import nl.s22k.chess.search.TranspositionTable;
+
+/**
+ * A chess engine which owns all the state that is needed for searching: the tt, the search-threads, boards and thread-data and the time
+ * manager. Multiple engines can be used concurrently in one jvm, only the zobrist-keys, the nnue-network and the evaluation-constants are
+ * shared.
+ */
+public class Engine {
+
+	private static final long PROGRESS_INTERVAL_MS = 1000;
+
+	// shared by all engines, only stops searches when their max-time has passed
+	private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "chess22k-max-timer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// the engines of this jvm that have not been shut down
+	private static final Set<Engine> engines = ConcurrentHashMap.newKeySet();
+
+	public final TranspositionTable tt = new TranspositionTable(this);
+	public final TimeManager timeManager = new TimeManager(this);
+
+	private int threadCount;
+	// search-threads which stay alive between searches, the first one runs the main search
+	private Worker[] workers = new Worker[0];
+	private final AtomicInteger runningWorkers = new AtomicInteger();
+	private int searchNumber = 0;
+	// copy of the position that is being searched, from which every worker copies its own board
+	private final ChessBoard position = new ChessBoard();
+	// only used for clearing and allocating the tt
+	private ForkJoinPool executor;
+	private ChessBoard[] boards = new ChessBoard[0];
+	private ThreadData[] threadDatas = new ThreadData[0];
+	private volatile NodeCounters nodeCounters = new NodeCounters(0);
+	// of the eval-, pawn- and material-cache of every search-thread
+	private int power2EvalEntries = EngineConstants.POWER_2_EVAL_ENTRIES;
+	private int power2PawnEntries = EngineConstants.POWER_2_PAWN_EVAL_ENTRIES;
+	private int power2MaterialEntries = EngineConstants.POWER_2_MATERIAL_ENTRIES;
+	// used by all search-threads instead of their own pawn-cache if set, as large as all own pawn-caches together
+	private long[] sharedPawnCache;
+	private boolean useSharedPawnCache = false;
+	private boolean ttPrefetch = EngineConstants.ENABLE_TT_PREFETCH;
+
+	// written with release and read with acquire semantics, the search-threads only read it every couple of nodes
+	private boolean running = false;
+	private static final VarHandle RUNNING;
+	static {
+		try {
+			RUNNING = MethodHandles.lookup().findVarHandle(Engine.class, "running", boolean.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// time of the first stop-request of the current search, 0 if not stopped
+	private volatile long stopRequestNs;
+	private int stopCount;
+	private long stopLatencyTotalUs;
+	private long stopLatencyMaxUs;
+
+	public boolean pondering = false;
+	private boolean maxTimeExceeded = false;
+	// a deadline was set which was not influenced by pondering
+	private boolean hasDeadline = false;
+	public int maxDepth = EngineConstants.MAX_PLIES;
+	public int multiPV = 1;
+
+	// called by the main search-thread after every iteration
+	public Consumer<ThreadData> plyListener = threadData -> {
+	};
+
+	private CompletableFuture<SearchResult> result;
+	private ScheduledFuture<?> maxTimeTask;
+
+	public Engine(final int threadCount) {
+		setThreadCount(threadCount);
+		engines.add(this);
+	}
+
+	/**
+	 * Used before changing data that is shared by all engines
+	 */
+	public static boolean isAnySearching() {
+		for (Engine engine : engines) {
+			if (engine.isSearching()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public static void clearCachesOfAllEngines() {
+		for (Engine engine : engines) {
+			engine.clearCaches();
+		}
+	}
+
+	/**
+	 * Existing workers (and their caches) are kept, only workers are started or stopped.
+	 */
+	public synchronized void setThreadCount(final int threadCount) {
+		if (threadCount == this.threadCount) {
+			return;
+		}
+		if (isSearching()) {
+			throw new IllegalStateException("Thread-count cannot be changed while searching");
+		}
+
+		for (int i = threadCount; i < this.threadCount; i++) {
+			workers[i].terminate();
+		}
+		boards = Arrays.copyOf(boards, threadCount);
+		threadDatas = Arrays.copyOf(threadDatas, threadCount);
+		workers = Arrays.copyOf(workers, threadCount);
+		nodeCounters = new NodeCounters(threadCount);
+		for (int i = this.threadCount; i < threadCount; i++) {
+			boards[i] = new ChessBoard();
+			boards[i].tt = tt;
+			boards[i].ttPrefetch = ttPrefetch;
+			threadDatas[i] = new ThreadData(this, i);
+			threadDatas[i].setCacheSizes(power2EvalEntries, power2PawnEntries, power2MaterialEntries);
+			workers[i] = new Worker(i);
+			workers[i].start();
+		}
+		this.threadCount = threadCount;
+		updateSharedPawnCache();
+	}
+
+	/**
+	 * Stops all search-threads, the engine cannot be used anymore
+	 */
+	public synchronized void shutdown() {
+		if (isSearching()) {
+			throw new IllegalStateException("Engine cannot be shut down while searching");
+		}
+		engines.remove(this);
+		for (Worker worker : workers) {
+			worker.terminate();
+		}
+		workers = new Worker[0];
+		nodeCounters = new NodeCounters(0);
+		boards = new ChessBoard[0];
+		threadDatas = new ThreadData[0];
+		threadCount = 0;
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Sizes the caches of all search-threads, the number of entries of every cache is a power of 2
+	 */
+	public synchronized void setCacheSizes(final int power2EvalEntries, final int power2PawnEntries, final int power2MaterialEntries) {
+		if (isSearching()) {
+			throw new IllegalStateException("Cache-sizes cannot be changed while searching");
+		}
+		checkCacheSize(power2EvalEntries);
+		checkCacheSize(power2PawnEntries);
+		checkCacheSize(power2MaterialEntries);
+
+		this.power2EvalEntries = power2EvalEntries;
+		this.power2PawnEntries = power2PawnEntries;
+		this.power2MaterialEntries = power2MaterialEntries;
+		for (ThreadData threadData : threadDatas) {
+			threadData.setCacheSizes(power2EvalEntries, power2PawnEntries, power2MaterialEntries);
+		}
+		updateSharedPawnCache();
+	}
+
+	public synchronized void setSharedPawnCache(final boolean useSharedPawnCache) {
+		if (isSearching()) {
+			throw new IllegalStateException("Shared pawn-cache cannot be changed while searching");
+		}
+		this.useSharedPawnCache = useSharedPawnCache;
+		updateSharedPawnCache();
+	}
+
+	public synchronized void setTTPrefetch(final boolean ttPrefetch) {
+		if (isSearching()) {
+			throw new IllegalStateException("TT-prefetch cannot be changed while searching");
+		}
+		this.ttPrefetch = ttPrefetch;
+		for (ChessBoard board : boards) {
+			board.ttPrefetch = ttPrefetch;
+		}
+	}
+
+	/**
+	 * @return null if the search-threads use their own pawn-cache
+	 */
+	public long[] getSharedPawnCache() {
+		return sharedPawnCache;
+	}
+
+	private void updateSharedPawnCache() {
+		if (!useSharedPawnCache) {
+			sharedPawnCache = null;
+		} else {
+			final int power2Entries = power2PawnEntries + 32 - Integer.numberOfLeadingZeros(threadCount - 1);
+			if (sharedPawnCache == null || sharedPawnCache.length != (1 << power2Entries) * PawnCacheUtil.ENTRY_SIZE) {
+				sharedPawnCache = PawnCacheUtil.create(power2Entries);
+			}
+		}
+		for (ThreadData threadData : threadDatas) {
+			threadData.sharedPawnCache = sharedPawnCache;
+		}
+	}
+
+	private static void checkCacheSize(final int power2Entries) {
+		if (power2Entries < EngineConstants.POWER_2_CACHE_ENTRIES_MIN || power2Entries > EngineConstants.POWER_2_CACHE_ENTRIES_MAX) {
+			throw new RuntimeException("Cache-size must be between " + EngineConstants.POWER_2_CACHE_ENTRIES_MIN + " and "
+					+ EngineConstants.POWER_2_CACHE_ENTRIES_MAX + ": " + power2Entries);
+		}
+	}
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	public ChessBoard getBoard(final int threadNumber) {
+		return boards[threadNumber];
+	}
+
+	public ThreadData getThreadData(final int threadNumber) {
+		return threadDatas[threadNumber];
+	}
+
+	/**
+	 * @return the number of nodes of the current (or last) search, as published by the search-threads
+	 */
+	public long getNodeCount() {
+		return nodeCounters.sum();
+	}
+
+	public long getNodeCount(final int threadNumber) {
+		return nodeCounters.get(threadNumber);
+	}
+
+	/**
+	 * Called by the search-threads every couple of nodes
+	 */
+	public void publishNodeCount(final int threadNumber, final long nodes) {
+		nodeCounters.set(threadNumber, nodes);
+	}
+
+	public synchronized boolean isSearching() {
+		return result != null;
+	}
+
+	/**
+	 * Starts searching a copy of the position, the position itself is not changed.
+	 *
+	 * @return completes when the search has finished or has been stopped
+	 */
+	public synchronized CompletableFuture<SearchResult> search(final ChessBoard position, final SearchLimits limits) {
+		if (isSearching()) {
+			throw new IllegalStateException("A search is already running");
+		}
+
+		tt.init(false);
+		ChessBoardUtil.copy(position, this.position);
+		this.position.moveCount = 0;
+
+		maxDepth = limits.depth;
+		multiPV = limits.multiPV;
+		pondering = limits.ponder;
+		maxTimeExceeded = false;
+
+		timeManager.reset();
+		timeManager.setMoveCount(position.moveCounter);
+		final long ttValue = tt.getValue(position.zobristKey);
+		if (ttValue != 0 && TTUtil.getFlag(ttValue) == TTUtil.FLAG_EXACT) {
+			timeManager.setTTHit();
+		}
+		if (limits.moveTimeMs != -1) {
+			timeManager.setExactMoveTime(limits.moveTimeMs);
+		}
+		if (limits.movesToGo != -1) {
+			timeManager.setMovesToGo(limits.movesToGo);
+		}
+		if (limits.timeLeftMs != -1) {
+			timeManager.setTotalTimeLeft(limits.timeLeftMs);
+		}
+		timeManager.setIncrement(limits.incrementMs);
+		timeManager.start();
+		if (limits.thinkingTimeMs != -1) {
+			timeManager.setSimpleTimeWindow(limits.thinkingTimeMs);
+		}
+
+		hasDeadline = !limits.ponder && timeManager.getMaxTimeMs() != Long.MAX_VALUE;
+		stopRequestNs = 0;
+		setRunning(true);
+		final CompletableFuture<SearchResult> current = new CompletableFuture<>();
+		result = current;
+		if (timeManager.getMaxTimeMs() != Long.MAX_VALUE) {
+			maxTimeTask = timer.schedule(this::maxTimeExceeded, timeManager.getMaxTimeMs(), TimeUnit.MILLISECONDS);
+		}
+		tt.incrementGeneration();
+		runningWorkers.set(threadCount);
+		searchNumber++;
+		for (Worker worker : workers) {
+			worker.wakeUp(searchNumber);
+		}
+		return current;
+	}
+
+	/**
+	 * Called by the main worker when all workers have finished
+	 */
+	private void complete(final Throwable t) {
+		final CompletableFuture<SearchResult> current = result;
+		final long stopLatencyUs = stopRequestNs == 0 ? -1 : (System.nanoTime() - stopRequestNs) / 1000;
+		if (stopLatencyUs != -1) {
+			synchronized (this) {
+				stopCount++;
+				stopLatencyTotalUs += stopLatencyUs;
+				stopLatencyMaxUs = Math.max(stopLatencyMaxUs, stopLatencyUs);
+			}
+		}
+		if (hasDeadline) {
+			timeManager.addOvershoot(timeManager.getPassedTimeMs() - timeManager.getMaxTimeMs());
+		}
+		// built before finishing, a new search can be started as soon as this one has finished
+		final SearchResult searchResult = t == null ? new SearchResult(threadDatas[0], getNodeCount(), timeManager.getPassedTimeMs(), stopLatencyUs)
+				: null;
+		finish();
+		if (t == null) {
+			current.complete(searchResult);
+		} else {
+			current.completeExceptionally(t);
+		}
+	}
+
+	private synchronized void finish() {
+		setRunning(false);
+		if (maxTimeTask != null) {
+			maxTimeTask.cancel(false);
+			maxTimeTask = null;
+		}
+		result = null;
+	}
+
+	private void maxTimeExceeded() {
+		if (pondering) {
+			maxTimeExceeded = true;
+		} else if (threadDatas[0].getBestMove() != 0) {
+			UciOut.sendInfoString("max time exceeded");
+			stop();
+		}
+	}
+
+	public void ponderHit() {
+		pondering = false;
+		if (maxTimeExceeded) {
+			stop();
+		}
+	}
+
+	public boolean isRunning() {
+		return (boolean) RUNNING.getAcquire(this);
+	}
+
+	/**
+	 * Only needed when searching without {@link #search(ChessBoard, SearchLimits)}
+	 */
+	public void setRunning(final boolean running) {
+		RUNNING.setRelease(this, running);
+	}
+
+	/**
+	 * Stops the search, the time until the search has finished is measured
+	 */
+	public void stop() {
+		if (stopRequestNs == 0 && isRunning()) {
+			stopRequestNs = System.nanoTime();
+		}
+		setRunning(false);
+	}
+
+	/**
+	 * @return number of stopped searches, average and maximum time in microseconds between stopping and finishing a search
+	 */
+	public synchronized long[] getStopLatencyStatistics() {
+		return new long[] { stopCount, stopLatencyTotalUs / Math.max(1, stopCount), stopLatencyMaxUs };
+	}
+
+	/**
+	 * Stops the search and waits until the result has been completed, so the engine can be reconfigured
+	 */
+	public void stopAndWait() {
+		final CompletableFuture<SearchResult> current;
+		synchronized (this) {
+			current = result;
+		}
+		stop();
+		if (current != null) {
+			current.handle((searchResult, t) -> null).join();
+		}
+	}
+
+	/**
+	 * Clears the tt and the caches and move-ordering of the search-threads, so searching a position gives the same result every time
+	 */
+	public void newGame() {
+		if (!tt.init(false)) {
+			tt.clearValues();
+		}
+		for (ThreadData threadData : threadDatas) {
+			threadData.clearCaches();
+			threadData.clearKillerAndCounterMoves();
+		}
+		if (sharedPawnCache != null) {
+			Arrays.fill(sharedPawnCache, 0);
+		}
+	}
+
+	/**
+	 * Clears all hash-dependent data, needed when the zobrist-keys have changed
+	 */
+	public void clearCaches() {
+		for (ThreadData threadData : threadDatas) {
+			threadData.clearCaches();
+		}
+		if (sharedPawnCache != null) {
+			Arrays.fill(sharedPawnCache, 0);
+		}
+		if (tt.isInitialized) {
+			tt.clearValues();
+		}
+	}
+
+	/**
+	 * Executes the task for every index on the search-threads and waits until all tasks are finished. Progress is reported every second.
+	 *
+	 * @param partitioned
+	 *            every thread executes an equal and contiguous part of the range, instead of using work-stealing
+	 */
+	public void executeInParallel(final String description, final int taskCount, final boolean partitioned, final IntConsumer task) {
+		synchronized (this) {
+			if (executor == null || executor.getParallelism() != threadCount) {
+				if (executor != null) {
+					executor.shutdown();
+				}
+				executor = new ForkJoinPool(threadCount);
+			}
+		}
+		final int leafSize = partitioned ? (taskCount + threadCount - 1) / threadCount : 1;
+		final AtomicInteger finished = new AtomicInteger();
+		final ForkJoinTask<Void> forkJoinTask = executor.submit(new RangeTask(0, taskCount, leafSize, task, finished));
+		while (true) {
+			try {
+				forkJoinTask.get(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+				return;
+			} catch (TimeoutException e) {
+				UciOut.sendInfoString(description + " " + finished.get() * 100 / taskCount + "%");
+			} catch (InterruptedException | ExecutionException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * A search-thread which parks between searches. It copies the position into its own board so the copies are done in parallel.
+	 */
+	private class Worker extends Thread {
+
+		private final int threadNumber;
+		private final SearchThread searchThread;
+		private volatile int wakeUpNumber = 0;
+		private volatile boolean terminated = false;
+
+		private Worker(final int threadNumber) {
+			super("chess22k-search-" + threadNumber);
+			setDaemon(true);
+			this.threadNumber = threadNumber;
+			searchThread = new SearchThread(Engine.this, threadNumber);
+		}
+
+		private void wakeUp(final int searchNumber) {
+			wakeUpNumber = searchNumber;
+			LockSupport.unpark(this);
+		}
+
+		private void terminate() {
+			terminated = true;
+			LockSupport.unpark(this);
+		}
+
+		@Override
+		public void run() {
+			int finishedNumber = 0;
+			while (true) {
+				while (wakeUpNumber == finishedNumber && !terminated) {
+					LockSupport.park(this);
+				}
+				if (terminated) {
+					return;
+				}
+				finishedNumber = wakeUpNumber;
+
+				Throwable error = null;
+				final ChessBoard cb = boards[threadNumber];
+				try {
+					ChessBoardUtil.copy(position, cb);
+					publishNodeCount(threadNumber, 0);
+					searchThread.call();
+				} catch (Throwable t) {
+					error = t;
+					Engine.this.stop();
+				}
+				// the final count is visible to the main worker after decrementing the running workers
+				publishNodeCount(threadNumber, cb.moveCount);
+
+				if (threadNumber == 0) {
+					// the main search has stopped the helpers, wait for them to finish
+					runningWorkers.decrementAndGet();
+					while (runningWorkers.get() != 0) {
+						LockSupport.park(this);
+					}
+					complete(error);
+				} else if (runningWorkers.decrementAndGet() == 0) {
+					LockSupport.unpark(workers[0]);
+				}
+			}
+		}
+	}
+
+}
@@ -21,6 +21,11 @@ public class EngineConstants {
 
 	// TT values
 	public static int POWER_2_TT_ENTRIES 					= 23;
+	public static final boolean ENABLE_TT_PREFETCH 		= false;
+
+	// Stop-signal: nodes between reading the stop-flag, stop-latency that is reported
+	public static final int STOP_CHECK_NODES 				= 128;
+	public static final int STOP_LATENCY_WARNING_MS 		= 10;
 
 	// Search improvements
 	public static final boolean ENABLE_COUNTER_MOVES 		= true;
@@ -28,6 +33,7 @@ public class EngineConstants {
 	public static final boolean ENABLE_HISTORY_HEURISTIC 	= true;
 	public static final boolean ENABLE_ASPIRATION 			= true;
 	public static final int ASPIRATION_WINDOW_DELTA 		= 20;
+	public static final boolean ENABLE_TIME_HEURISTICS 		= true;
 
 	// Search extensions
 	public static final boolean ENABLE_CHECK_EXTENSION 		= true;
@@ -46,11 +52,15 @@ public class EngineConstants {
 	public static final boolean ENABLE_Q_FUTILITY_PRUNING 	= true;
 	public static final boolean USE_TT_SCORE_AS_EVAL 		= true;
 
-	// Evaluation-function
+	// Evaluation-function (the cache-sizes are the defaults of the uci-options)
 	public static final boolean ENABLE_EVAL_CACHE		= true;
+	// off: the looser stand-pat weakens the q-search futility pruning (more nodes at the same nps), kept for tuning the margin
+	public static final boolean ENABLE_LAZY_EVAL		= false;
 	public static final int POWER_2_EVAL_ENTRIES 		= 12;
 	public static final boolean ENABLE_MATERIAL_CACHE	= true;
 	public static final int POWER_2_MATERIAL_ENTRIES 	= 11;
 	public static final boolean ENABLE_PAWN_EVAL_CACHE 	= true;
 	public static final int POWER_2_PAWN_EVAL_ENTRIES 	= 12;
+	public static final int POWER_2_CACHE_ENTRIES_MIN 	= 4;
+	public static final int POWER_2_CACHE_ENTRIES_MAX 	= 22;
 }
@@ -19,7 +19,7 @@ public class ErrorLogger {
 	private static final Logger logger = Logger.getLogger(ErrorLogger.class.getName());
 	public static String startFen = "";
 
-	public static void log(ChessBoard cb, Throwable t, boolean systemExit) {
+	public static void log(Engine engine, ChessBoard cb, Throwable t, boolean systemExit) {
 		try {
 
 			// print to System.out
@@ -50,7 +50,7 @@ public class ErrorLogger {
 			System.out.println();
 
 			// print statistics
-			Statistics.print();
+			Statistics.print(engine);
 
 			System.out.flush();
 
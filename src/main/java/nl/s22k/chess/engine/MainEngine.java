@@ -1,96 +1,29 @@
 package nl.s22k.chess.engine;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Scanner;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.ChessConstants;
 import nl.s22k.chess.Statistics;
+import nl.s22k.chess.Zobrist;
 import nl.s22k.chess.move.MoveWrapper;
-import nl.s22k.chess.search.NegamaxUtil;
-import nl.s22k.chess.search.SearchUtil;
 import nl.s22k.chess.search.TTUtil;
 import nl.s22k.chess.search.ThreadData;
-import nl.s22k.chess.search.TimeUtil;
 
 public class MainEngine {
 
-	private static ChessBoard cb;
-	private static ThreadData threadData;
-
-	public static boolean pondering = false;
-	private static boolean maxTimeExceeded = false;
-	private static boolean calculating = false;
-
-	public static int maxDepth = EngineConstants.MAX_PLIES;
-
-	private static Object synchronizedObject = new Object();
-
-	private static Thread searchThread;
+	private static final Engine engine = new Engine(1);
 	static {
-		searchThread = new Thread() {
-			@Override
-			public void run() {
-				while (true) {
-					try {
-						synchronized (synchronizedObject) {
-							// to prevent spurious wakeups
-							while (!calculating) {
-								synchronizedObject.wait();
-							}
-						}
-
-						maxTimeExceeded = false;
-						SearchUtil.start(cb);
-
-						// calculation ready
-						calculating = false;
-						maxTimeThread.interrupt();
-						infoThread.interrupt();
-
-						UciOut.sendBestMove(threadData);
-					} catch (Throwable t) {
-						ErrorLogger.log(cb, t, true);
-					}
-				}
-			}
-		};
-		searchThread.setName("chess22k-search");
-		searchThread.setDaemon(true);
+		engine.plyListener = threadData -> UciOut.sendPlyInfo(engine, threadData);
 	}
 
-	private static Thread maxTimeThread;
-	static {
-		maxTimeThread = new Thread() {
-			@Override
-			public void run() {
-				while (true) {
-					try {
-						synchronized (synchronizedObject) {
-							// to prevent spurious wakeups
-							while (!calculating) {
-								synchronizedObject.wait();
-							}
-						}
-						Thread.sleep(TimeUtil.getMaxTimeMs());
-						if (pondering) {
-							maxTimeExceeded = true;
-						} else if (threadData.getBestMove() != 0) {
-							System.out.println("info string max time exceeded");
-							NegamaxUtil.isRunning = false;
-						}
-
-					} catch (InterruptedException e) {
-						// do nothing
-					}
-				}
-			}
-		};
-		maxTimeThread.setName("chess22k-max-timer");
-		maxTimeThread.setDaemon(true);
-	}
+	// the position of the position-command, the engine searches a copy
+	private static final ChessBoard cb = new ChessBoard();
+	private static final ThreadData threadData = new ThreadData(0);
 
 	public static Thread infoThread;
 	static {
@@ -100,8 +33,8 @@ public class MainEngine {
 				while (true) {
 					try {
 						Thread.sleep(2000);
-						if (calculating) {
-							UciOut.sendInfo();
+						if (engine.isSearching()) {
+							UciOut.sendInfo(engine);
 						}
 					} catch (InterruptedException e) {
 						// do nothing
@@ -116,10 +49,10 @@ public class MainEngine {
 
 	public static void main(String[] args) {
 		Thread.currentThread().setName("chess22k-main");
-		cb = ChessBoardInstances.get(0);
-		threadData = ThreadData.getInstance(0);
-		searchThread.start();
-		maxTimeThread.start();
+		if (args.length > 0 && args[0].equals("bench")) {
+			Bench.run(args.length > 1 ? Integer.parseInt(args[1]) : Bench.DEFAULT_DEPTH);
+			System.exit(0);
+		}
 		infoThread.start();
 		MainEngine.start();
 	}
@@ -131,45 +64,84 @@ public class MainEngine {
 				readLine(sc.nextLine());
 			}
 		} catch (Throwable t) {
-			ErrorLogger.log(cb, t, true);
+			ErrorLogger.log(engine, cb, t, true);
 		} finally {
 			sc.close();
 		}
 	}
 
 	public synchronized static void readLine(String line) {
-		String[] tokens = line.split(" ");
+		try {
+			executeCommand(line.split(" "));
+		} catch (IllegalStateException e) {
+			// commands that are not possible while searching
+			UciOut.sendInfoString(e.getMessage());
+		}
+	}
+
+	private static void executeCommand(String[] tokens) {
 		if (tokens[0].equals("uci")) {
 			UciOut.sendUci();
 		} else if (tokens[0].equals("isready")) {
 			System.out.println("readyok");
 		} else if (tokens[0].equals("ucinewgame")) {
-			TTUtil.init(false);
-			TTUtil.clearValues();
+			engine.newGame();
 		} else if (tokens[0].equals("position")) {
 			position(tokens);
 		} else if (tokens[0].equals("go")) {
 			go(tokens);
 		} else if (tokens[0].equals("ponderhit")) {
-			pondering = false;
-			if (MainEngine.maxTimeExceeded) {
-				NegamaxUtil.isRunning = false;
-			}
+			engine.ponderHit();
 		} else if (tokens[0].equals("eval")) {
 			UciOut.eval(cb, threadData);
 		} else if (tokens[0].equals("setoption")) {
-			if (tokens.length > 4) {
-				setOption(tokens[2], tokens[4]);
+			// names and values can contain spaces: setoption name Move Overhead value 30
+			final int valueIndex = Arrays.asList(tokens).indexOf("value");
+			if (valueIndex > 2 && valueIndex < tokens.length - 1) {
+				setOption(String.join(" ", Arrays.copyOfRange(tokens, 2, valueIndex)),
+						String.join(" ", Arrays.copyOfRange(tokens, valueIndex + 1, tokens.length)));
 			}
+		} else if (tokens[0].equals("hashstats")) {
+			engine.tt.init(false);
+			UciOut.sendHashStatistics(engine);
+		} else if (tokens[0].equals("stopstats")) {
+			UciOut.sendStopStatistics(engine);
+		} else if (tokens[0].equals("searchstats")) {
+			UciOut.sendSearchStatistics(engine);
+		} else if (tokens[0].equals("debug")) {
+			// search-statistics are counted from the next search on and sent with every bestmove
+			Statistics.enabled = tokens.length > 1 && tokens[1].equals("on");
+		} else if (tokens[0].equals("savehash")) {
+			saveHash(tokens);
+		} else if (tokens[0].equals("loadhash")) {
+			loadHash(tokens);
+		} else if (tokens[0].equals("bench")) {
+			bench(tokens);
 		} else if (tokens[0].equals("quit")) {
 			System.exit(0);
 		} else if (tokens[0].equals("stop")) {
-			NegamaxUtil.isRunning = false;
+			engine.stopAndWait();
 		} else {
 			System.out.println("Unknown command: " + tokens[0]);
 		}
 	}
 
+	private static void bench(String[] tokens) {
+		// bench [depth]
+		// the bench uses the default zobrist-keys, which are shared by all engines
+		if (Engine.isAnySearching()) {
+			UciOut.sendInfoString("bench is not possible while searching");
+			return;
+		}
+		final long seed = Zobrist.seed;
+		UciOptions.setZobristSeed(cb, Zobrist.DEFAULT_SEED);
+		try {
+			Bench.run(tokens.length > 1 ? Integer.parseInt(tokens[1]) : Bench.DEFAULT_DEPTH);
+		} finally {
+			UciOptions.setZobristSeed(cb, seed);
+		}
+	}
+
 	private static void position(String[] tokens) {
 		if (tokens[1].equals("startpos")) {
 			ChessBoardUtil.setStartFen(cb);
@@ -198,20 +170,75 @@ public class MainEngine {
 			}
 		}
 		ErrorLogger.startFen = cb.toString();
-		TTUtil.halfMoveCounter = cb.moveCounter;
+	}
+
+	private static void saveHash(String[] tokens) {
+		// savehash /tmp/chess22k.hash.gz
+		if (tokens.length < 2) {
+			System.out.println("info string usage: savehash <file>");
+			return;
+		}
+		try {
+			engine.tt.saveToFile(Path.of(tokens[1]));
+			System.out.println("info string hash saved to " + tokens[1]);
+		} catch (IOException e) {
+			System.out.println("info string could not save hash: " + e.getMessage());
+		}
+	}
+
+	private static void loadHash(String[] tokens) {
+		// loadhash /tmp/chess22k.hash.gz
+		if (tokens.length < 2) {
+			System.out.println("info string usage: loadhash <file>");
+			return;
+		}
+		try {
+			engine.tt.loadFromFile(Path.of(tokens[1]));
+			System.out.println("info string hash loaded from " + tokens[1]);
+		} catch (IOException e) {
+			System.out.println("info string could not load hash: " + e.getMessage());
+		}
 	}
 
 	private static void setOption(String optionName, String optionValue) {
 		// setoption name Hash value 128
 		if (optionName.toLowerCase().equals("hash")) {
 			int value = Integer.parseInt(optionValue);
-			TTUtil.setSizeMB(value);
+			engine.tt.setSizeMB(value);
+		} else if (optionName.toLowerCase().equals("move overhead")) {
+			engine.timeManager.setMoveOverheadMs(Integer.parseInt(optionValue));
+		} else if (optionName.toLowerCase().equals("multipv")) {
+			UciOptions.multiPV = Integer.parseInt(optionValue);
 		} else if (optionName.toLowerCase().equals("threads")) {
-			UciOptions.setThreadCount(Integer.parseInt(optionValue));
-			cb = ChessBoardInstances.get(0);
-			threadData = ThreadData.getInstance(0);
+			engine.setThreadCount(Integer.parseInt(optionValue));
 		} else if (optionName.toLowerCase().equals("ponder")) {
 			UciOptions.setPonder(Boolean.parseBoolean(optionValue));
+		} else if (optionName.toLowerCase().equals("hashstorage")) {
+			engine.tt.setStorage(optionValue.toLowerCase());
+		} else if (optionName.toLowerCase().equals("hashfile")) {
+			engine.tt.setFile(optionValue);
+		} else if (optionName.toLowerCase().equals("hashlayout")) {
+			engine.tt.setLayout(optionValue.toLowerCase());
+		} else if (optionName.toLowerCase().equals("hashreplacement")) {
+			engine.tt.replaceByAge = optionValue.toLowerCase().equals(TTUtil.REPLACEMENT_AGING);
+		} else if (optionName.toLowerCase().equals("numaaware")) {
+			engine.tt.setNumaAware(Boolean.parseBoolean(optionValue));
+		} else if (optionName.toLowerCase().equals("largepages")) {
+			UciOptions.setLargePages(engine, Boolean.parseBoolean(optionValue));
+		} else if (optionName.toLowerCase().equals("evalfile")) {
+			UciOptions.setEvalFile(optionValue);
+		} else if (optionName.toLowerCase().equals("usennue")) {
+			UciOptions.setUseNNUE(Boolean.parseBoolean(optionValue));
+		} else if (optionName.toLowerCase().equals("evalcachepower2")) {
+			UciOptions.setEvalCacheSize(engine, Integer.parseInt(optionValue));
+		} else if (optionName.toLowerCase().equals("pawncachepower2")) {
+			UciOptions.setPawnCacheSize(engine, Integer.parseInt(optionValue));
+		} else if (optionName.toLowerCase().equals("sharedpawncache")) {
+			engine.setSharedPawnCache(Boolean.parseBoolean(optionValue));
+		} else if (optionName.toLowerCase().equals("materialcachepower2")) {
+			UciOptions.setMaterialCacheSize(engine, Integer.parseInt(optionValue));
+		} else if (optionName.toLowerCase().equals("zobristseed")) {
+			UciOptions.setZobristSeed(cb, Long.parseLong(optionValue));
 		} else {
 			System.out.println("Unknown option: " + optionName);
 		}
@@ -221,17 +248,8 @@ public class MainEngine {
 		// go movestogo 30 wtime 3600000 btime 3600000
 		// go wtime 40847 btime 48019 winc 0 binc 0 movestogo 20
 
-		Statistics.reset();
-		TimeUtil.reset();
-		TimeUtil.setMoveCount(cb.moveCounter);
-		maxDepth = EngineConstants.MAX_PLIES;
-		pondering = false;
-
-		TTUtil.init(false);
-		final long ttValue = TTUtil.getValue(cb.zobristKey);
-		if (ttValue != 0 && TTUtil.getFlag(ttValue) == TTUtil.FLAG_EXACT) {
-			TimeUtil.setTTHit();
-		}
+		SearchLimits limits = new SearchLimits();
+		limits.multiPV = UciOptions.multiPV;
 
 		// go
 		// go infinite
@@ -239,36 +257,37 @@ public class MainEngine {
 		if (goCommandTokens.length != 1) {
 			for (int i = 1; i < goCommandTokens.length; i++) {
 				if (goCommandTokens[i].equals("infinite")) {
-					// TODO are we clearing the values again?
-					TTUtil.clearValues();
+					// search until stopped, the tt is kept
 				} else if (goCommandTokens[i].equals("ponder")) {
-					pondering = true;
+					limits.ponder = true;
 				} else if (goCommandTokens[i].equals("movetime")) {
-					TimeUtil.setExactMoveTime(Integer.parseInt(goCommandTokens[i + 1]));
+					limits.moveTimeMs = Integer.parseInt(goCommandTokens[i + 1]);
 				} else if (goCommandTokens[i].equals("movestogo")) {
-					TimeUtil.setMovesToGo(Integer.parseInt(goCommandTokens[i + 1]));
+					limits.movesToGo = Integer.parseInt(goCommandTokens[i + 1]);
 				} else if (goCommandTokens[i].equals("depth")) {
-					maxDepth = Integer.parseInt(goCommandTokens[i + 1]);
+					limits.depth = Integer.parseInt(goCommandTokens[i + 1]);
 				} else if (goCommandTokens[i].equals("wtime")) {
 					if (cb.colorToMove == ChessConstants.WHITE) {
-						TimeUtil.setTotalTimeLeft(Integer.parseInt(goCommandTokens[i + 1]));
+						limits.timeLeftMs = Integer.parseInt(goCommandTokens[i + 1]);
 					}
 				} else if (goCommandTokens[i].equals("btime")) {
 					if (cb.colorToMove == ChessConstants.BLACK) {
-						TimeUtil.setTotalTimeLeft(Integer.parseInt(goCommandTokens[i + 1]));
+						limits.timeLeftMs = Integer.parseInt(goCommandTokens[i + 1]);
 					}
 				} else if (goCommandTokens[i].equals("winc") || goCommandTokens[i].equals("binc")) {
-					TimeUtil.setIncrement(Integer.parseInt(goCommandTokens[i + 1]));
+					limits.incrementMs = Integer.parseInt(goCommandTokens[i + 1]);
 				}
 			}
 		}
 
-		TimeUtil.start();
-
-		calculating = true;
-		synchronized (synchronizedObject) {
-			synchronizedObject.notifyAll();
-		}
+		engine.search(cb, limits).whenComplete((result, t) -> {
+			if (t != null) {
+				ErrorLogger.log(engine, cb, t, true);
+				return;
+			}
+			infoThread.interrupt();
+			UciOut.sendBestMove(engine, result);
+		});
 	}
 
 	private static void doMoves(String[] moveTokens) {
@@ -0,0 +1,31 @@
+package nl.s22k.chess.engine;
+
+/**
+ * The limits of a search, as given by the go-command. -1 means not set.
+ */
+public class SearchLimits {
+
+	public int depth = EngineConstants.MAX_PLIES;
+	public int moveTimeMs = -1;
+	public int movesToGo = -1;
+	public int timeLeftMs = -1;
+	public int incrementMs = 0;
+	public boolean ponder = false;
+	public int multiPV = 1;
+
+	// no new iteration is started after half of this time
+	public int thinkingTimeMs = -1;
+
+	public static SearchLimits depth(final int depth) {
+		SearchLimits limits = new SearchLimits();
+		limits.depth = depth;
+		return limits;
+	}
+
+	public static SearchLimits thinkingTime(final int thinkingTimeMs) {
+		SearchLimits limits = new SearchLimits();
+		limits.thinkingTimeMs = thinkingTimeMs;
+		return limits;
+	}
+
+}
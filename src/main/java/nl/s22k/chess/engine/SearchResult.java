@@ -0,0 +1,29 @@
+package nl.s22k.chess.engine;
+
+import nl.s22k.chess.ChessConstants.ScoreType;
+import nl.s22k.chess.search.ThreadData;
+
+public class SearchResult {
+
+	public final int bestMove;
+	public final int ponderMove;
+	public final int score;
+	public final ScoreType scoreType;
+	public final int depth;
+	public final long nodes;
+	public final long timeMs;
+	// time between stopping and finishing the search, -1 if the search finished by itself
+	public final long stopLatencyUs;
+
+	public SearchResult(final ThreadData threadData, final long nodes, final long timeMs, final long stopLatencyUs) {
+		bestMove = threadData.getBestMove();
+		ponderMove = threadData.getPonderMove();
+		score = threadData.bestScore;
+		scoreType = threadData.scoreType;
+		depth = threadData.depth;
+		this.nodes = nodes;
+		this.timeMs = timeMs;
+		this.stopLatencyUs = stopLatencyUs;
+	}
+
+}
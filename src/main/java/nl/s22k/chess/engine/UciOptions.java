@@ -1,25 +1,116 @@
 package nl.s22k.chess.engine;
 
-import nl.s22k.chess.ChessBoardInstances;
-import nl.s22k.chess.search.SearchUtil;
-import nl.s22k.chess.search.ThreadData;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.Zobrist;
+import nl.s22k.chess.eval.NNUE;
+import nl.s22k.chess.search.TTUtil;
 
 public class UciOptions {
 
-	public static int threadCount = 1;
+	public static int multiPV = 1;
 	public static boolean ponder = true;
+	public static int power2EvalEntries = EngineConstants.POWER_2_EVAL_ENTRIES;
+	public static int power2PawnEntries = EngineConstants.POWER_2_PAWN_EVAL_ENTRIES;
+	public static int power2MaterialEntries = EngineConstants.POWER_2_MATERIAL_ENTRIES;
+
+	public static void setPonder(boolean ponder) {
+		UciOptions.ponder = ponder;
+	}
+
+	public static void setEvalCacheSize(Engine engine, int power2Entries) {
+		engine.setCacheSizes(power2Entries, power2PawnEntries, power2MaterialEntries);
+		power2EvalEntries = power2Entries;
+	}
+
+	public static void setPawnCacheSize(Engine engine, int power2Entries) {
+		engine.setCacheSizes(power2EvalEntries, power2Entries, power2MaterialEntries);
+		power2PawnEntries = power2Entries;
+	}
+
+	public static void setMaterialCacheSize(Engine engine, int power2Entries) {
+		engine.setCacheSizes(power2EvalEntries, power2PawnEntries, power2Entries);
+		power2MaterialEntries = power2Entries;
+	}
 
-	public static void setThreadCount(int threadCount) {
-		if (threadCount != UciOptions.threadCount) {
-			UciOptions.threadCount = threadCount;
-			ChessBoardInstances.init(threadCount);
-			ThreadData.initInstances(threadCount);
-			SearchUtil.setThreadCount(threadCount);
+	public static void setLargePages(Engine engine, boolean largePages) {
+		if (largePages) {
+			if (engine.tt.getStorage().equals(TTUtil.STORAGE_HEAP)) {
+				System.out.println("info string large pages for heap hash-storage are enabled using -XX:+UseTransparentHugePages");
+			} else if (!getTransparentHugePagesMode().equals("always")) {
+				System.out.println("info string transparent huge pages mode is '" + getTransparentHugePagesMode() + "' instead of 'always'");
+			}
 		}
+		engine.tt.setLargePages(largePages);
 	}
 
-	public static void setPonder(boolean ponder) {
-		UciOptions.ponder = ponder;
+	private static String getTransparentHugePagesMode() {
+		// always [madvise] never
+		try {
+			String modes = Files.readString(Path.of("/sys/kernel/mm/transparent_hugepage/enabled"));
+			return modes.substring(modes.indexOf('[') + 1, modes.indexOf(']'));
+		} catch (IOException | RuntimeException e) {
+			return "unknown";
+		}
+	}
+
+	public static void setEvalFile(String file) {
+		if (file.isEmpty() || file.equals("<empty>")) {
+			return;
+		}
+		// the network is shared by all engines of this jvm
+		if (Engine.isAnySearching()) {
+			throw new IllegalStateException("Eval-file cannot be changed while searching");
+		}
+		try {
+			NNUE.load(Path.of(file));
+			System.out.println("info string nnue loaded from " + file + ", hidden size " + NNUE.hiddenSize);
+		} catch (IOException e) {
+			System.out.println("info string could not load nnue: " + e.getMessage());
+			return;
+		}
+		if (NNUE.enabled) {
+			Engine.clearCachesOfAllEngines();
+		}
+	}
+
+	public static void setUseNNUE(boolean useNNUE) {
+		if (useNNUE && !NNUE.isLoaded()) {
+			System.out.println("info string nnue is not used, no eval-file has been loaded");
+			useNNUE = false;
+		}
+		if (useNNUE == NNUE.enabled) {
+			return;
+		}
+		if (Engine.isAnySearching()) {
+			throw new IllegalStateException("UseNNUE cannot be changed while searching");
+		}
+		NNUE.enabled = useNNUE;
+
+		// the eval-caches contain scores of the other evaluation
+		Engine.clearCachesOfAllEngines();
+	}
+
+	/**
+	 * The keys are shared by all engines of this jvm: only the given position is rekeyed, other positions must be set again
+	 */
+	public static void setZobristSeed(ChessBoard cb, long seed) {
+		if (seed == Zobrist.seed) {
+			return;
+		}
+		if (Engine.isAnySearching()) {
+			throw new IllegalStateException("ZobristSeed cannot be changed while searching");
+		}
+		Zobrist.init(seed);
+
+		// all hash-dependent data is invalid now
+		// (the repetition-history is only restored by the next position-command)
+		Zobrist.setKey(cb);
+		Zobrist.setPawnKey(cb);
+		Engine.clearCachesOfAllEngines();
 	}
 
 }
@@ -1,17 +1,21 @@
 package nl.s22k.chess.engine;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.ChessConstants;
+import nl.s22k.chess.ChessConstants.ScoreType;
 import nl.s22k.chess.Statistics;
+import nl.s22k.chess.Util;
+import nl.s22k.chess.Zobrist;
+import nl.s22k.chess.eval.EvalConstants;
 import nl.s22k.chess.eval.EvalUtil;
 import nl.s22k.chess.eval.KingSafetyEval;
 import nl.s22k.chess.eval.PassedPawnEval;
 import nl.s22k.chess.move.MoveWrapper;
 import nl.s22k.chess.move.PVUtil;
+import nl.s22k.chess.search.RootMoves;
 import nl.s22k.chess.search.TTUtil;
+import nl.s22k.chess.search.TimeManager;
 import nl.s22k.chess.search.ThreadData;
-import nl.s22k.chess.search.TimeUtil;
 
 public class UciOut {
 
@@ -20,38 +24,96 @@ public class UciOut {
 	public static void sendUci() {
 		System.out.println("id name chess22k " + getVersion());
 		System.out.println("id author Sander MvdB");
-		System.out.println("option name Hash type spin default 128 min 1 max 16384");
+		System.out.println("option name Hash type spin default 128 min 1 max 65536");
+		System.out.println("option name HashStorage type combo default " + TTUtil.STORAGE_HEAP + " var " + TTUtil.STORAGE_HEAP + " var " + TTUtil.STORAGE_OFF_HEAP
+				+ " var " + TTUtil.STORAGE_MAPPED);
+		System.out.println("option name HashFile type string default <empty>");
+		System.out.println("option name HashLayout type combo default " + TTUtil.LAYOUT_BUCKETS + " var " + TTUtil.LAYOUT_BUCKETS + " var " + TTUtil.LAYOUT_CLUSTERS);
+		System.out.println("option name HashReplacement type combo default " + TTUtil.REPLACEMENT_AGING + " var " + TTUtil.REPLACEMENT_AGING + " var "
+				+ TTUtil.REPLACEMENT_DEPTH);
+		System.out.println("option name NumaAware type check default false");
+		System.out.println("option name LargePages type check default false");
+		System.out.println("option name EvalCachePower2 type spin default " + EngineConstants.POWER_2_EVAL_ENTRIES + " min "
+				+ EngineConstants.POWER_2_CACHE_ENTRIES_MIN + " max " + EngineConstants.POWER_2_CACHE_ENTRIES_MAX);
+		System.out.println("option name PawnCachePower2 type spin default " + EngineConstants.POWER_2_PAWN_EVAL_ENTRIES + " min "
+				+ EngineConstants.POWER_2_CACHE_ENTRIES_MIN + " max " + EngineConstants.POWER_2_CACHE_ENTRIES_MAX);
+		System.out.println("option name SharedPawnCache type check default false");
+		System.out.println("option name MaterialCachePower2 type spin default " + EngineConstants.POWER_2_MATERIAL_ENTRIES + " min "
+				+ EngineConstants.POWER_2_CACHE_ENTRIES_MIN + " max " + EngineConstants.POWER_2_CACHE_ENTRIES_MAX);
+		System.out.println("option name ZobristSeed type spin default " + Zobrist.DEFAULT_SEED + " min 0 max " + Integer.MAX_VALUE);
+		System.out.println("option name EvalFile type string default <empty>");
+		System.out.println("option name UseNNUE type check default false");
 		System.out.println("option name Threads type spin default 1 min 1 max " + EngineConstants.MAX_THREADS);
 		System.out.println("option name Ponder type check default false");
+		System.out.println("option name MultiPV type spin default 1 min 1 max " + RootMoves.MAX_MOVES);
+		System.out.println("option name Move Overhead type spin default " + TimeManager.DEFAULT_MOVE_OVERHEAD_MS + " min 0 max 5000");
 		System.out.println("uciok");
 	}
 
-	public static void sendBestMove(final ThreadData threadData) {
+	public static void sendBestMove(final Engine engine, final SearchResult result) {
 		if (noOutput) {
 			return;
 		}
 
-		Statistics.print();
-		if (UciOptions.ponder && threadData.getPonderMove() != 0) {
-			System.out.println("bestmove " + new MoveWrapper(threadData.getBestMove()) + " ponder " + new MoveWrapper(threadData.getPonderMove()));
+		if (Statistics.enabled) {
+			sendSearchStatistics(engine);
+		}
+		if (result.stopLatencyUs > EngineConstants.STOP_LATENCY_WARNING_MS * 1000) {
+			sendInfoString("stop latency " + result.stopLatencyUs / 1000 + " ms");
+		}
+		if (UciOptions.ponder && result.ponderMove != 0) {
+			System.out.println("bestmove " + new MoveWrapper(result.bestMove) + " ponder " + new MoveWrapper(result.ponderMove));
 		} else {
-			System.out.println("bestmove " + new MoveWrapper(threadData.getBestMove()));
+			System.out.println("bestmove " + new MoveWrapper(result.bestMove));
+		}
+	}
+
+	public static void sendInfoString(final String message) {
+		if (noOutput) {
+			return;
+		}
+		System.out.println("info string " + message);
+	}
+
+	public static void sendHashStatistics(final Engine engine) {
+		for (String line : engine.tt.getUsageStatistics()) {
+			sendInfoString(line);
 		}
 	}
 
-	public static long calculateNps(long totalMoveCount) {
-		return totalMoveCount * 1000 / Math.max(TimeUtil.getPassedTimeMs(), 1);
+	/**
+	 * The statistics of the last search, only counted when debug is on
+	 */
+	public static void sendSearchStatistics(final Engine engine) {
+		if (!Statistics.enabled) {
+			sendInfoString("search-statistics are disabled, use 'debug on'");
+			return;
+		}
+		for (String line : Statistics.getLines(engine)) {
+			sendInfoString(line);
+		}
 	}
 
-	public static void sendInfo() {
+	public static void sendStopStatistics(final Engine engine) {
+		final long[] statistics = engine.getStopLatencyStatistics();
+		sendInfoString("stops " + statistics[0] + " latency average " + statistics[1] + " us max " + statistics[2] + " us");
+		final long[] overshoot = engine.timeManager.getOvershootStatistics();
+		sendInfoString("deadlines " + overshoot[0] + " overshot " + overshoot[1] + " max " + overshoot[2] + " ms learned overhead " + overshoot[3] + " ms");
+	}
+
+	public static long calculateNps(final Engine engine, long totalMoveCount) {
+		return totalMoveCount * 1000 / Math.max(engine.timeManager.getPassedTimeMs(), 1);
+	}
+
+	public static void sendInfo(final Engine engine) {
 		if (noOutput) {
 			return;
 		}
-		long totalMoveCount = ChessBoardUtil.calculateTotalMoveCount();
-		System.out.println("info nodes " + totalMoveCount + " nps " + calculateNps(totalMoveCount) + " hashfull " + TTUtil.getUsagePercentage());
+		long totalMoveCount = engine.getNodeCount();
+		System.out.println("info nodes " + totalMoveCount + " nps " + calculateNps(engine, totalMoveCount) + " hashfull " + engine.tt.getUsagePermill());
 	}
 
-	public static void sendPlyInfo(final ThreadData threadData) {
+	public static void sendPlyInfo(final Engine engine, final ThreadData threadData) {
 		if (noOutput) {
 			return;
 		}
@@ -59,21 +121,73 @@ public class UciOut {
 		// restart info thread
 		MainEngine.infoThread.interrupt();
 
-		long totalMoveCount = ChessBoardUtil.calculateTotalMoveCount();
+		long totalMoveCount = engine.getNodeCount();
+
+		if (engine.multiPV > 1) {
+			sendMultiPVInfo(engine, threadData.rootMoves, totalMoveCount);
+			return;
+		}
+		if (threadData.depth == 0) {
+			// stopped before the first iteration has finished
+			return;
+		}
 
 		// info depth 1 seldepth 2 score cp 50 pv d2d4 d7d5 e2e3 hashfull 0 nps 1000 nodes 22
 		// info depth 4 seldepth 10 score cp 40 upperbound pv d2d4 d7d5 e2e3 hashfull 0 nps 30000 nodes 1422
-		System.out.println("info depth " + threadData.depth + " time " + TimeUtil.getPassedTimeMs() + " score cp " + threadData.bestScore + threadData.scoreType
-				+ "nps " + calculateNps(totalMoveCount) + " nodes " + totalMoveCount + " hashfull " + TTUtil.getUsagePercentage() + " pv "
+		System.out.println("info depth " + threadData.depth + " time " + engine.timeManager.getPassedTimeMs() + " score " + getScore(threadData.bestScore)
+				+ threadData.scoreType + "nps " + calculateNps(engine, totalMoveCount) + " nodes " + totalMoveCount + " hashfull " + engine.tt.getUsagePermill()
+				+ " pv "
 				+ PVUtil.asString(threadData.pv));
 	}
 
+	/**
+	 * Only the line that has just been searched is sent, as a bound if it failed low or high. When the first line of an iteration has been
+	 * searched, the other lines are sent with the depth, score and pv of the previous iteration.
+	 */
+	private static void sendMultiPVInfo(final Engine engine, final RootMoves rootMoves, final long totalMoveCount) {
+		if (rootMoves.lineScoreType == null || rootMoves.lineScore == ChessConstants.SCORE_NOT_RUNNING) {
+			return;
+		}
+		final String stats = " nps " + calculateNps(engine, totalMoveCount) + " nodes " + totalMoveCount + " hashfull " + engine.tt.getUsagePermill();
+		final int line = rootMoves.line;
+		sendMultiPVLine(engine, rootMoves.depth, line, rootMoves.lineScore, rootMoves.lineScoreType, rootMoves.getPV(line), stats);
+		if (line != 0 || rootMoves.lineScoreType != ScoreType.EXACT || rootMoves.depth == 1) {
+			return;
+		}
+		for (int i = 1; i < Math.min(engine.multiPV, rootMoves.count); i++) {
+			if (rootMoves.previousScores[i] == RootMoves.SCORE_UNKNOWN) {
+				break;
+			}
+			sendMultiPVLine(engine, rootMoves.depth - 1, i, rootMoves.previousScores[i], ScoreType.EXACT, rootMoves.getPreviousPV(i), stats);
+		}
+	}
+
+	private static void sendMultiPVLine(final Engine engine, final int depth, final int line, final int score, final ScoreType scoreType,
+			final int[] pv, final String stats) {
+		// info depth 8 multipv 2 time 120 score cp 20 upperbound nps 30000 nodes 1422 hashfull 0 pv d2d4 d7d5 e2e3
+		System.out.println("info depth " + depth + " multipv " + (line + 1) + " time " + engine.timeManager.getPassedTimeMs() + " score "
+				+ getScore(score) + scoreType + stats.trim() + " pv " + PVUtil.asString(pv));
+	}
+
+	/**
+	 * @return the uci-score: cp or mate in moves (negative if the engine is mated)
+	 */
+	private static String getScore(final int score) {
+		if (score > EvalConstants.SCORE_MATE_BOUND) {
+			return "mate " + (Util.SHORT_MAX - score + 1) / 2;
+		}
+		if (score < -EvalConstants.SCORE_MATE_BOUND) {
+			return "mate " + -(score - Util.SHORT_MIN + 1) / 2;
+		}
+		return "cp " + score;
+	}
+
 	public static void eval(final ChessBoard cb, final ThreadData threadData) {
 		final int mobilityScore = EvalUtil.calculateMobilityScoresAndSetAttacks(cb);
-		System.out.println(" Material imbalance: " + EvalUtil.getImbalances(cb, threadData.materialCache));
+		System.out.println(" Material imbalance: " + EvalUtil.getImbalances(cb, threadData));
 		System.out.println("          Position : " + getMgEgString(cb.psqtScore));
 		System.out.println("          Mobility : " + getMgEgString(mobilityScore));
-		System.out.println(" Pawn : " + EvalUtil.getPawnScores(cb, threadData.pawnCache));
+		System.out.println(" Pawn : " + EvalUtil.getPawnScores(cb, threadData));
 		System.out.println("       Pawn-passed : " + getMgEgString(PassedPawnEval.calculateScores(cb)));
 		System.out.println("       Pawn shield : " + getMgEgString(EvalUtil.calculatePawnShieldBonus(cb)));
 		System.out.println("       King-safety : " + KingSafetyEval.calculateScores(cb));
@@ -2,31 +2,35 @@ package nl.s22k.chess.eval;
 
 import nl.s22k.chess.Assert;
 import nl.s22k.chess.ChessConstants;
-import nl.s22k.chess.Statistics;
 import nl.s22k.chess.Util;
 import nl.s22k.chess.engine.EngineConstants;
 
+/**
+ * Buckets of 2 entries: key, score, key, score. The full key is stored. A new value replaces the entry with the same key or else moves the
+ * first entry to the second one.
+ */
 public class EvalCacheUtil {
 
-	private static final int POWER_2_TABLE_SHIFTS = 64 - EngineConstants.POWER_2_EVAL_ENTRIES;
+	public static final int ENTRY_SIZE = 2;
+	private static final int BUCKET_SIZE = 2 * ENTRY_SIZE;
 
-	public static int getScore(final long key, final int[] evalCache) {
-		final int index = getIndex(key);
+	public static long[] create(final int power2Entries) {
+		return new long[(1 << power2Entries) * ENTRY_SIZE];
+	}
 
-		if (evalCache[index] == (int) key) {
-			if (Statistics.ENABLED) {
-				Statistics.evalCacheHits++;
-			}
-			return evalCache[index + 1];
-		}
+	public static int getScore(final long key, final long[] evalCache) {
+		final int index = getIndex(key, evalCache);
 
-		if (Statistics.ENABLED) {
-			Statistics.evalCacheMisses++;
+		if (evalCache[index] == key) {
+			return (int) evalCache[index + 1];
+		}
+		if (evalCache[index + ENTRY_SIZE] == key) {
+			return (int) evalCache[index + ENTRY_SIZE + 1];
 		}
 		return ChessConstants.CACHE_MISS;
 	}
 
-	public static void addValue(final long key, final int score, final int[] evalCache) {
+	public static void addValue(final long key, final int score, final long[] evalCache) {
 		if (!EngineConstants.ENABLE_EVAL_CACHE) {
 			return;
 		}
@@ -35,13 +39,29 @@ public class EvalCacheUtil {
 			Assert.isTrue(score >= Util.SHORT_MIN);
 		}
 
-		final int index = getIndex(key);
-		evalCache[index] = (int) key;
+		final int index = getIndex(key, evalCache);
+		if (evalCache[index + ENTRY_SIZE] == key) {
+			evalCache[index + ENTRY_SIZE + 1] = score;
+			return;
+		}
+		if (evalCache[index] != key) {
+			evalCache[index + ENTRY_SIZE] = evalCache[index];
+			evalCache[index + ENTRY_SIZE + 1] = evalCache[index + 1];
+			evalCache[index] = key;
+		}
 		evalCache[index + 1] = score;
 	}
 
-	private static int getIndex(final long key) {
-		return (int) (key >>> POWER_2_TABLE_SHIFTS) << 1;
+	/**
+	 * @return the permill of the first 1000 entries that are used
+	 */
+	public static int getUsagePermill(final long[] evalCache) {
+		return Util.getUsagePermill(evalCache, ENTRY_SIZE);
+	}
+
+	private static int getIndex(final long key, final long[] evalCache) {
+		// the number of buckets is a power of 2, the upper bits of the key are used
+		return (int) (key >>> (Long.numberOfLeadingZeros(evalCache.length / BUCKET_SIZE) + 1)) * BUCKET_SIZE;
 	}
 
 }
@@ -15,6 +15,7 @@ import nl.s22k.chess.ChessBoard;
 import nl.s22k.chess.ChessBoardTestUtil;
 import nl.s22k.chess.ChessConstants;
 import nl.s22k.chess.Statistics;
+import nl.s22k.chess.Util;
 import nl.s22k.chess.engine.EngineConstants;
 import nl.s22k.chess.move.MagicUtil;
 import nl.s22k.chess.move.StaticMoves;
@@ -28,22 +29,66 @@ public class EvalUtil {
 	public static final int PHASE_TOTAL = 4 * EvalConstants.PHASE[NIGHT] + 4 * EvalConstants.PHASE[BISHOP] + 4 * EvalConstants.PHASE[ROOK]
 			+ 2 * EvalConstants.PHASE[QUEEN];
 
+	// the terms that are skipped by the lazy evaluation exceed this margin in less than 0.5% of the positions of the bench
+	private static final int LAZY_EVAL_MARGIN = 700;
+
 	public static int getScore(final ChessBoard cb, final ThreadData threadData) {
-		if (Statistics.ENABLED) {
-			Statistics.evalNodes++;
+		return getScore(cb, threadData, Util.SHORT_MIN, Util.SHORT_MAX);
+	}
+
+	/**
+	 * The evaluation is skipped if the static eval was found by the tt-probe of the position
+	 *
+	 * @param ttEval
+	 *            the static eval that was stored in the tt, or ChessConstants.CACHE_MISS
+	 */
+	public static int getScore(final ChessBoard cb, final ThreadData threadData, final int ttEval, final int alpha, final int beta) {
+		if (ttEval != ChessConstants.CACHE_MISS) {
+			if (Statistics.enabled) {
+				threadData.statistics.ttEvals++;
+			}
+			return ttEval;
+		}
+		return getScore(cb, threadData, alpha, beta);
+	}
+
+	/**
+	 * If the material, psqt, pawn and imbalance scores plus or minus a margin are outside the window, the other (expensive) terms are not
+	 * calculated and that estimate is returned: at most alpha or at least beta. The margin is heuristic, the skipped terms can exceed it so
+	 * the returned score can be beyond the actual score.
+	 */
+	public static int getScore(final ChessBoard cb, final ThreadData threadData, final int alpha, final int beta) {
+		if (Statistics.enabled) {
+			threadData.statistics.evalNodes++;
 		}
 
 		if (EngineConstants.ENABLE_EVAL_CACHE && !EngineConstants.TEST_EVAL_CACHES) {
 			final int score = EvalCacheUtil.getScore(cb.zobristKey, threadData.evalCache);
 			if (score != ChessConstants.CACHE_MISS) {
+				if (Statistics.enabled) {
+					threadData.statistics.evalCacheHits++;
+				}
 				return score;
 			}
+			if (Statistics.enabled) {
+				threadData.statistics.evalCacheMisses++;
+			}
+		}
+
+		if (cb.accumulator != null) {
+			final int score = NNUE.getScore(cb);
+			EvalCacheUtil.addValue(cb.zobristKey, score, threadData.evalCache);
+			return score;
 		}
 
-		return calculateScore(cb, threadData);
+		return calculateScore(cb, threadData, alpha, beta);
 	}
 
 	public static int calculateScore(final ChessBoard cb, final ThreadData threadData) {
+		return calculateScore(cb, threadData, Util.SHORT_MIN, Util.SHORT_MAX);
+	}
+
+	private static int calculateScore(final ChessBoard cb, final ThreadData threadData, final int alpha, final int beta) {
 
 		int score = MaterialUtil.SCORE_UNKNOWN;
 		if (Long.bitCount(cb.allPieces) <= 5) {
@@ -54,11 +99,30 @@ public class EvalUtil {
 			}
 		}
 		if (score == MaterialUtil.SCORE_UNKNOWN) {
-			score = taperedEval(cb, threadData);
+			final int pawnScore = getPawnScores(cb, threadData);
+			final int imbalances = getImbalances(cb, threadData);
+
+			if (EngineConstants.ENABLE_LAZY_EVAL && !isEndgameAdjusted(cb, WHITE) && !isEndgameAdjusted(cb, BLACK)) {
+				final int lazyScore = ChessConstants.COLOR_FACTOR[cb.colorToMove] * taperedEval(cb, cb.psqtScore, pawnScore, imbalances);
+				if (lazyScore - LAZY_EVAL_MARGIN >= beta) {
+					if (Statistics.enabled) {
+						threadData.statistics.lazyEvals++;
+					}
+					return lazyScore - LAZY_EVAL_MARGIN;
+				}
+				if (lazyScore + LAZY_EVAL_MARGIN <= alpha) {
+					if (Statistics.enabled) {
+						threadData.statistics.lazyEvals++;
+					}
+					return lazyScore + LAZY_EVAL_MARGIN;
+				}
+			}
+
+			score = taperedEval(cb, pawnScore, imbalances);
 			if (score > 25) {
-				score = adjustEndgame(cb, score, WHITE, threadData.materialCache);
+				score = adjustEndgame(cb, score, WHITE, threadData);
 			} else if (score < -25) {
-				score = adjustEndgame(cb, score, BLACK, threadData.materialCache);
+				score = adjustEndgame(cb, score, BLACK, threadData);
 			}
 		}
 
@@ -81,11 +145,15 @@ public class EvalUtil {
 		return score;
 	}
 
-	private static int adjustEndgame(final ChessBoard cb, final int score, final int color, final int[] materialCache) {
-		if (Long.bitCount(cb.pieces[color][ALL]) > 3) {
-			return score;
-		}
-		if (MaterialUtil.hasPawnsOrQueens(cb.materialKey, color)) {
+	/**
+	 * @return true if the score could be adjusted by {@link #adjustEndgame(ChessBoard, int, int, ThreadData)}
+	 */
+	private static boolean isEndgameAdjusted(final ChessBoard cb, final int color) {
+		return Long.bitCount(cb.pieces[color][ALL]) <= 3 && !MaterialUtil.hasPawnsOrQueens(cb.materialKey, color);
+	}
+
+	private static int adjustEndgame(final ChessBoard cb, final int score, final int color, final ThreadData threadData) {
+		if (!isEndgameAdjusted(cb, color)) {
 			return score;
 		}
 
@@ -101,17 +169,25 @@ public class EvalUtil {
 			if (MaterialUtil.hasOnlyNights(cb.materialKey, color)) {
 				return EvalConstants.SCORE_DRAW;
 			}
-			if (getImbalances(cb, materialCache) * ChessConstants.COLOR_FACTOR[color] < EvalConstants.OTHER_SCORES[EvalConstants.IX_DRAWISH]) {
+			if (getImbalances(cb, threadData) * ChessConstants.COLOR_FACTOR[color] < EvalConstants.OTHER_SCORES[EvalConstants.IX_DRAWISH]) {
 				return score / 8;
 			}
 		}
 		return score;
 	}
 
-	private static int taperedEval(final ChessBoard cb, final ThreadData threadData) {
-		final int pawnScore = getPawnScores(cb, threadData.pawnCache);
+	/**
+	 * Only the terms which are (almost) free: the psqt-score is incremental and the pawn and imbalance scores are cached
+	 */
+	private static int taperedEval(final ChessBoard cb, final int mgEgScore, final int pawnScore, final int phaseIndependentScore) {
+		final int scoreMg = cb.phase == PHASE_TOTAL ? 0 : getMgScore(mgEgScore) + pawnScore + phaseIndependentScore;
+		final int scoreEg = getEgScore(mgEgScore) + pawnScore + phaseIndependentScore;
+		return (scoreMg * (PHASE_TOTAL - cb.phase) + scoreEg * cb.phase) / PHASE_TOTAL / calculateScaleFactor(cb);
+	}
+
+	private static int taperedEval(final ChessBoard cb, final int pawnScore, final int imbalances) {
 		final int mgEgScore = calculateMobilityScoresAndSetAttacks(cb) + calculateThreats(cb) + calculatePawnShieldBonus(cb);
-		final int phaseIndependentScore = calculateOthers(cb) + getImbalances(cb, threadData.materialCache);
+		final int phaseIndependentScore = calculateOthers(cb) + imbalances;
 
 		final int scoreMg = cb.phase == PHASE_TOTAL ? 0
 				: getMgScore(mgEgScore + cb.psqtScore) + pawnScore + KingSafetyEval.calculateScores(cb) + calculateSpace(cb) + phaseIndependentScore;
@@ -169,16 +245,29 @@ public class EvalUtil {
 		return score;
 	}
 
-	public static int getPawnScores(final ChessBoard cb, final long[] pawnCache) {
+	public static int getPawnScores(final ChessBoard cb, final ThreadData threadData) {
+		final long[] pawnCache = threadData.pawnCache;
+		final long[] sharedPawnCache = threadData.sharedPawnCache;
 		if (!EngineConstants.TEST_EVAL_CACHES) {
-			final int score = PawnCacheUtil.updateBoardAndGetScore(cb, pawnCache);
+			final int score = sharedPawnCache == null ? PawnCacheUtil.updateBoardAndGetScore(cb, pawnCache)
+					: PawnCacheUtil.updateBoardAndGetSharedScore(cb, sharedPawnCache);
 			if (score != ChessConstants.CACHE_MISS) {
+				if (Statistics.enabled) {
+					threadData.statistics.pawnEvalCacheHits++;
+				}
 				return score;
 			}
+			if (Statistics.enabled) {
+				threadData.statistics.pawnEvalCacheMisses++;
+			}
 		}
 
 		final int score = calculatePawnScores(cb);
-		PawnCacheUtil.addValue(cb.pawnZobristKey, score, cb.passedPawnsAndOutposts, pawnCache);
+		if (sharedPawnCache == null) {
+			PawnCacheUtil.addValue(cb.pawnZobristKey, score, cb.passedPawnsAndOutposts, pawnCache);
+		} else {
+			PawnCacheUtil.addSharedValue(cb.pawnZobristKey, score, cb.passedPawnsAndOutposts, sharedPawnCache);
+		}
 		return score;
 	}
 
@@ -322,12 +411,19 @@ public class EvalUtil {
 		return score;
 	}
 
-	public static int getImbalances(final ChessBoard cb, final int[] materialCache) {
+	public static int getImbalances(final ChessBoard cb, final ThreadData threadData) {
+		final int[] materialCache = threadData.materialCache;
 		if (!EngineConstants.TEST_EVAL_CACHES) {
 			final int score = MaterialCacheUtil.getScore(cb.materialKey, materialCache);
 			if (score != ChessConstants.CACHE_MISS) {
+				if (Statistics.enabled) {
+					threadData.statistics.materialCacheHits++;
+				}
 				return score;
 			}
+			if (Statistics.enabled) {
+				threadData.statistics.materialCacheMisses++;
+			}
 		}
 		final int score = calculateImbalances(cb);
 		MaterialCacheUtil.addValue(cb.materialKey, score, materialCache);
@@ -2,13 +2,20 @@ package nl.s22k.chess.eval;
 
 import nl.s22k.chess.Assert;
 import nl.s22k.chess.ChessConstants;
-import nl.s22k.chess.Statistics;
 import nl.s22k.chess.Util;
 import nl.s22k.chess.engine.EngineConstants;
 
+/**
+ * Buckets of 2 entries: key, score. The material-key is the full key. Replacement is the same as in the {@link EvalCacheUtil}.
+ */
 public class MaterialCacheUtil {
 
-	private static final int POWER_2_TABLE_SHIFTS = 64 - EngineConstants.POWER_2_MATERIAL_ENTRIES;
+	public static final int ENTRY_SIZE = 2;
+	private static final int BUCKET_SIZE = 2 * ENTRY_SIZE;
+
+	public static int[] create(final int power2Entries) {
+		return new int[(1 << power2Entries) * ENTRY_SIZE];
+	}
 
 	public static int getScore(final int key, final int[] materialCache) {
 
@@ -16,17 +23,13 @@ public class MaterialCacheUtil {
 			return ChessConstants.CACHE_MISS;
 		}
 
-		final int index = getIndex(key);
+		final int index = getIndex(key, materialCache);
 
 		if (materialCache[index] == key) {
-			if (Statistics.ENABLED) {
-				Statistics.materialCacheHits++;
-			}
 			return materialCache[index + 1];
 		}
-
-		if (Statistics.ENABLED) {
-			Statistics.materialCacheMisses++;
+		if (materialCache[index + ENTRY_SIZE] == key) {
+			return materialCache[index + ENTRY_SIZE + 1];
 		}
 		return ChessConstants.CACHE_MISS;
 	}
@@ -42,13 +45,28 @@ public class MaterialCacheUtil {
 			Assert.isTrue(score >= Util.SHORT_MIN);
 		}
 
-		final int index = getIndex(key);
-		materialCache[index] = key;
+		final int index = getIndex(key, materialCache);
+		if (materialCache[index + ENTRY_SIZE] == key) {
+			materialCache[index + ENTRY_SIZE + 1] = score;
+			return;
+		}
+		if (materialCache[index] != key) {
+			materialCache[index + ENTRY_SIZE] = materialCache[index];
+			materialCache[index + ENTRY_SIZE + 1] = materialCache[index + 1];
+			materialCache[index] = key;
+		}
 		materialCache[index + 1] = score;
 	}
 
-	private static int getIndex(final int materialKey) {
-		return ((materialKey * 836519301) >>> POWER_2_TABLE_SHIFTS) << 1;
+	/**
+	 * @return the permill of the first 1000 entries that are used
+	 */
+	public static int getUsagePermill(final int[] materialCache) {
+		return Util.getUsagePermill(materialCache, ENTRY_SIZE);
+	}
+
+	private static int getIndex(final int materialKey, final int[] materialCache) {
+		return ((materialKey * 836519301) >>> (Integer.numberOfLeadingZeros(materialCache.length / BUCKET_SIZE) + 1)) * BUCKET_SIZE;
 	}
 
 }
@@ -0,0 +1,112 @@
+package nl.s22k.chess.eval;
+
+import static nl.s22k.chess.ChessConstants.BLACK;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import nl.s22k.chess.ChessBoard;
+
+/**
+ * Efficiently updatable neural network which can be used instead of the normal evaluation: (768 -> N) x 2 -> 1 with a clipped relu.
+ * <p>
+ * Every perspective (white and black) has its own accumulator of N values: the biases plus the weights of all pieces on the board, seen
+ * from that side. The accumulators are updated by the pieces that change when a move is made (see {@link NNUEAccumulator}). The output is
+ * calculated using the accumulator of the side to move followed by the other one.
+ * <p>
+ * Weights-file: little-endian int16 values, no header. Feature-weights [768][N] (quantized by QA), feature-biases [N] (QA), output-weights
+ * [2N] (QB) and the output-bias (QA * QB). The hidden size N is derived from the file-size.<br>
+ * Feature-index = side * 384 + (piece - 1) * 64 + square. Side is 0 for the own pieces of the perspective, piece is pawn (1) to king (6)
+ * and square is a1 = 0 to h8 = 63, flipped vertically for the black perspective.
+ */
+public final class NNUE {
+
+	public static final int FEATURES = 768;
+
+	private static final int QA = 255;
+	private static final int QB = 64;
+	private static final int SCALE = 400;
+
+	// true if the network is used by the search, can only be set when a network has been loaded
+	public static boolean enabled;
+	public static Path loadedFile;
+
+	public static int hiddenSize;
+	static short[] featureWeights;
+	static short[] featureBiases;
+	private static short[] outputWeights;
+	private static int outputBias;
+
+	/**
+	 * Loads the network. The accumulators of the search-threads are resized when they are used again.
+	 */
+	public static synchronized void load(final Path file) throws IOException {
+		final byte[] bytes = Files.readAllBytes(file);
+		final int values = bytes.length / 2;
+		if (bytes.length % 2 != 0 || (values - 1) % (FEATURES + 3) != 0) {
+			throw new IOException("Incorrect nnue-file size " + bytes.length + ": " + file);
+		}
+		final int newHiddenSize = (values - 1) / (FEATURES + 3);
+
+		final ShortBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+		final short[] newFeatureWeights = new short[FEATURES * newHiddenSize];
+		final short[] newFeatureBiases = new short[newHiddenSize];
+		final short[] newOutputWeights = new short[2 * newHiddenSize];
+		buffer.get(newFeatureWeights);
+		buffer.get(newFeatureBiases);
+		buffer.get(newOutputWeights);
+
+		featureWeights = newFeatureWeights;
+		featureBiases = newFeatureBiases;
+		outputWeights = newOutputWeights;
+		outputBias = buffer.get();
+		hiddenSize = newHiddenSize;
+		loadedFile = file;
+	}
+
+	public static boolean isLoaded() {
+		return featureWeights != null;
+	}
+
+	/**
+	 * @return the score for the side to move
+	 */
+	public static int getScore(final ChessBoard cb) {
+		final short[] values = cb.accumulator.getValues();
+		final int us = cb.colorToMove * hiddenSize;
+		final int them = cb.colorToMoveInverse * hiddenSize;
+
+		// a long because the hidden size and the weights are not bounded
+		long sum = 0;
+		for (int i = 0; i < hiddenSize; i++) {
+			sum += clippedRelu(values[us + i]) * outputWeights[i];
+		}
+		for (int i = 0; i < hiddenSize; i++) {
+			sum += clippedRelu(values[them + i]) * outputWeights[hiddenSize + i];
+		}
+
+		final long score = (sum + outputBias) * SCALE / (QA * QB);
+		return (int) Math.max(-EvalConstants.SCORE_MATE_BOUND + 1, Math.min(EvalConstants.SCORE_MATE_BOUND - 1, score));
+	}
+
+	private static int clippedRelu(final short value) {
+		return Math.max(0, Math.min(QA, value));
+	}
+
+	/**
+	 * @return the offset of the feature in the feature-weights
+	 */
+	static int getFeatureOffset(final int perspective, final int color, final int piece, final int index) {
+		// the board-index starts at h1
+		int square = index ^ 7;
+		if (perspective == BLACK) {
+			square ^= 56;
+		}
+		return ((color == perspective ? 0 : 384) + (piece - 1) * 64 + square) * hiddenSize;
+	}
+
+}
@@ -0,0 +1,167 @@
+package nl.s22k.chess.eval;
+
+import static nl.s22k.chess.ChessConstants.BLACK;
+import static nl.s22k.chess.ChessConstants.EMPTY;
+import static nl.s22k.chess.ChessConstants.KING;
+import static nl.s22k.chess.ChessConstants.ROOK;
+import static nl.s22k.chess.ChessConstants.WHITE;
+
+import java.util.Arrays;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessConstants;
+import nl.s22k.chess.engine.EngineConstants;
+import nl.s22k.chess.move.MoveUtil;
+
+/**
+ * Stack of the nnue-accumulators of a search-thread, one entry per ply. Making a move only stores the move, the accumulators of a ply are
+ * calculated when the position is evaluated: by copying the last calculated accumulators while adding and subtracting the weights of the
+ * pieces that have changed. Undoing a move only goes back one ply.
+ */
+public final class NNUEAccumulator {
+
+	public final int hiddenSize;
+
+	// per ply: the white perspective followed by the black perspective
+	private final short[][] values = new short[EngineConstants.MAX_PLIES * 2][];
+	// the move (0 for a null-move) and the color that made it, per ply
+	private final int[] moves = new int[EngineConstants.MAX_PLIES * 2];
+	private final int[] colors = new int[EngineConstants.MAX_PLIES * 2];
+	private final boolean[] calculated = new boolean[EngineConstants.MAX_PLIES * 2];
+	private int ply;
+
+	public NNUEAccumulator(final int hiddenSize) {
+		this.hiddenSize = hiddenSize;
+		for (int i = 0; i < values.length; i++) {
+			values[i] = new short[2 * hiddenSize];
+		}
+	}
+
+	short[] getValues() {
+		if (!calculated[ply]) {
+			int calculatedPly = ply - 1;
+			while (!calculated[calculatedPly]) {
+				calculatedPly--;
+			}
+			for (int i = calculatedPly + 1; i <= ply; i++) {
+				update(i);
+			}
+		}
+		return values[ply];
+	}
+
+	/**
+	 * Calculates the accumulators of the position from scratch, called when a search starts
+	 */
+	public void refresh(final ChessBoard cb) {
+		ply = 0;
+		calculate(cb, values[0]);
+		calculated[0] = true;
+	}
+
+	/**
+	 * Compares the incrementally updated accumulators with ones that are calculated from scratch
+	 */
+	public boolean isUpToDate(final ChessBoard cb) {
+		final short[] expected = new short[2 * hiddenSize];
+		calculate(cb, expected);
+		return Arrays.equals(expected, getValues());
+	}
+
+	private void calculate(final ChessBoard cb, final short[] current) {
+		for (int perspective = WHITE; perspective <= BLACK; perspective++) {
+			System.arraycopy(NNUE.featureBiases, 0, current, perspective * hiddenSize, hiddenSize);
+			for (int index = 0; index < 64; index++) {
+				final int piece = cb.pieceIndexes[index];
+				if (piece != EMPTY) {
+					final int color = (cb.pieces[WHITE][piece] & 1L << index) != 0 ? WHITE : BLACK;
+					add(current, perspective * hiddenSize, NNUE.getFeatureOffset(perspective, color, piece, index));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Called before the board is changed
+	 */
+	public void doMove(final ChessBoard cb, final int move) {
+		ply++;
+		moves[ply] = move;
+		colors[ply] = cb.colorToMove;
+		calculated[ply] = false;
+	}
+
+	public void doNullMove() {
+		ply++;
+		moves[ply] = 0;
+		calculated[ply] = false;
+	}
+
+	public void undoMove() {
+		ply--;
+	}
+
+	private void update(final int ply) {
+		calculated[ply] = true;
+		final int move = moves[ply];
+		if (move == 0) {
+			System.arraycopy(values[ply - 1], 0, values[ply], 0, 2 * hiddenSize);
+			return;
+		}
+
+		final int color = colors[ply];
+		final int fromIndex = MoveUtil.getFromIndex(move);
+		final int toIndex = MoveUtil.getToIndex(move);
+		final int sourcePiece = MoveUtil.getSourcePieceIndex(move);
+		final int attackedPiece = MoveUtil.getAttackedPieceIndex(move);
+		final int addedPiece = MoveUtil.isPromotion(move) ? MoveUtil.getMoveType(move) : sourcePiece;
+
+		final short[] previous = values[ply - 1];
+		final short[] current = values[ply];
+		for (int perspective = WHITE; perspective <= BLACK; perspective++) {
+			final int offset = perspective * hiddenSize;
+			final int add = NNUE.getFeatureOffset(perspective, color, addedPiece, toIndex);
+			final int subtract = NNUE.getFeatureOffset(perspective, color, sourcePiece, fromIndex);
+			if (attackedPiece == EMPTY) {
+				addSubtract(previous, current, offset, add, subtract);
+			} else {
+				final int capturedIndex = MoveUtil.isEPMove(move) ? toIndex + ChessConstants.COLOR_FACTOR_8[1 - color] : toIndex;
+				addSubtractSubtract(previous, current, offset, add, subtract,
+						NNUE.getFeatureOffset(perspective, 1 - color, attackedPiece, capturedIndex));
+			}
+		}
+
+		if (sourcePiece == KING && MoveUtil.isCastlingMove(move)) {
+			// the rook moves from the corner to the square the king has passed (the board-index starts at h1)
+			final int rookFromIndex = toIndex < fromIndex ? toIndex - 1 : toIndex + 2;
+			final int rookToIndex = (fromIndex + toIndex) / 2;
+			for (int perspective = WHITE; perspective <= BLACK; perspective++) {
+				addSubtract(current, current, perspective * hiddenSize, NNUE.getFeatureOffset(perspective, color, ROOK, rookToIndex),
+						NNUE.getFeatureOffset(perspective, color, ROOK, rookFromIndex));
+			}
+		}
+	}
+
+	private void add(final short[] current, final int offset, final int add) {
+		final short[] weights = NNUE.featureWeights;
+		for (int i = 0; i < hiddenSize; i++) {
+			current[offset + i] += weights[add + i];
+		}
+	}
+
+	private void addSubtract(final short[] previous, final short[] current, final int offset, final int add, final int subtract) {
+		final short[] weights = NNUE.featureWeights;
+		for (int i = 0; i < hiddenSize; i++) {
+			current[offset + i] = (short) (previous[offset + i] + weights[add + i] - weights[subtract + i]);
+		}
+	}
+
+	private void addSubtractSubtract(final short[] previous, final short[] current, final int offset, final int add, final int subtract1,
+			final int subtract2) {
+		final short[] weights = NNUE.featureWeights;
+		for (int i = 0; i < hiddenSize; i++) {
+			current[offset + i] = (short) (previous[offset + i] + weights[add + i] - weights[subtract1 + i] - weights[subtract2 + i]);
+		}
+	}
+
+}
@@ -3,13 +3,23 @@ package nl.s22k.chess.eval;
 import nl.s22k.chess.Assert;
 import nl.s22k.chess.ChessBoard;
 import nl.s22k.chess.ChessConstants;
-import nl.s22k.chess.Statistics;
 import nl.s22k.chess.Util;
 import nl.s22k.chess.engine.EngineConstants;
 
+/**
+ * Buckets of 2 entries: key, passedPawnsAndOutposts, score. Replacement is the same as in the {@link EvalCacheUtil}.
+ * <p>
+ * The shared cache is used by all search-threads without locking: one entry per index which is always replaced. The key is stored xor-ed
+ * with the values so an entry which is read while another thread is writing it (a torn read) is detected as a miss, like the tt does.
+ */
 public class PawnCacheUtil {
 
-	private static final int POWER_2_TABLE_SHIFTS = 64 - EngineConstants.POWER_2_PAWN_EVAL_ENTRIES;
+	public static final int ENTRY_SIZE = 3;
+	private static final int BUCKET_SIZE = 2 * ENTRY_SIZE;
+
+	public static long[] create(final int power2Entries) {
+		return new long[(1 << power2Entries) * ENTRY_SIZE];
+	}
 
 	public static int updateBoardAndGetScore(final ChessBoard cb, final long[] pawnCache) {
 
@@ -17,21 +27,17 @@ public class PawnCacheUtil {
 			return ChessConstants.CACHE_MISS;
 		}
 
-		final int index = getIndex(cb.pawnZobristKey);
-		if (pawnCache[index] == cb.pawnZobristKey) {
-			if (Statistics.ENABLED) {
-				Statistics.pawnEvalCacheHits++;
+		int index = getIndex(cb.pawnZobristKey, pawnCache);
+		if (pawnCache[index] != cb.pawnZobristKey) {
+			index += ENTRY_SIZE;
+			if (pawnCache[index] != cb.pawnZobristKey) {
+				return ChessConstants.CACHE_MISS;
 			}
-			if (!EngineConstants.TEST_EVAL_CACHES) {
-				cb.passedPawnsAndOutposts = pawnCache[index + 1];
-			}
-			return (int) pawnCache[index + 2];
 		}
-
-		if (Statistics.ENABLED) {
-			Statistics.pawnEvalCacheMisses++;
+		if (!EngineConstants.TEST_EVAL_CACHES) {
+			cb.passedPawnsAndOutposts = pawnCache[index + 1];
 		}
-		return ChessConstants.CACHE_MISS;
+		return (int) pawnCache[index + 2];
 	}
 
 	public static void addValue(final long key, final int score, final long passedPawnsAndOutpostsValue, final long[] pawnCache) {
@@ -45,14 +51,66 @@ public class PawnCacheUtil {
 			Assert.isTrue(score >= Util.SHORT_MIN);
 		}
 
-		final int index = getIndex(key);
+		int index = getIndex(key, pawnCache);
+		if (pawnCache[index + ENTRY_SIZE] == key) {
+			index += ENTRY_SIZE;
+		} else if (pawnCache[index] != key) {
+			System.arraycopy(pawnCache, index, pawnCache, index + ENTRY_SIZE, ENTRY_SIZE);
+		}
 		pawnCache[index] = key;
 		pawnCache[index + 1] = passedPawnsAndOutpostsValue;
 		pawnCache[index + 2] = score;
 	}
 
-	private static int getIndex(final long key) {
-		return (int) (key >>> POWER_2_TABLE_SHIFTS) * 3;
+	public static int updateBoardAndGetSharedScore(final ChessBoard cb, final long[] sharedPawnCache) {
+
+		if (!EngineConstants.ENABLE_PAWN_EVAL_CACHE) {
+			return ChessConstants.CACHE_MISS;
+		}
+
+		final int index = getSharedIndex(cb.pawnZobristKey, sharedPawnCache);
+		final long xorKey = sharedPawnCache[index];
+		final long passedPawnsAndOutpostsValue = sharedPawnCache[index + 1];
+		final long score = sharedPawnCache[index + 2];
+		if ((xorKey ^ passedPawnsAndOutpostsValue ^ score) != cb.pawnZobristKey) {
+			return ChessConstants.CACHE_MISS;
+		}
+		if (!EngineConstants.TEST_EVAL_CACHES) {
+			cb.passedPawnsAndOutposts = passedPawnsAndOutpostsValue;
+		}
+		return (int) score;
+	}
+
+	public static void addSharedValue(final long key, final int score, final long passedPawnsAndOutpostsValue, final long[] sharedPawnCache) {
+
+		if (!EngineConstants.ENABLE_PAWN_EVAL_CACHE) {
+			return;
+		}
+
+		if (EngineConstants.ASSERT) {
+			Assert.isTrue(score <= Util.SHORT_MAX);
+			Assert.isTrue(score >= Util.SHORT_MIN);
+		}
+
+		final int index = getSharedIndex(key, sharedPawnCache);
+		sharedPawnCache[index] = key ^ passedPawnsAndOutpostsValue ^ score;
+		sharedPawnCache[index + 1] = passedPawnsAndOutpostsValue;
+		sharedPawnCache[index + 2] = score;
+	}
+
+	/**
+	 * @return the permill of the first 1000 entries that are used
+	 */
+	public static int getUsagePermill(final long[] pawnCache) {
+		return Util.getUsagePermill(pawnCache, ENTRY_SIZE);
+	}
+
+	private static int getIndex(final long key, final long[] pawnCache) {
+		return (int) (key >>> (Long.numberOfLeadingZeros(pawnCache.length / BUCKET_SIZE) + 1)) * BUCKET_SIZE;
+	}
+
+	private static int getSharedIndex(final long key, final long[] sharedPawnCache) {
+		return (int) (key >>> (Long.numberOfLeadingZeros(sharedPawnCache.length / ENTRY_SIZE) + 1)) * ENTRY_SIZE;
 	}
 
 }
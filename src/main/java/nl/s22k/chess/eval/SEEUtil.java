@@ -9,7 +9,6 @@ import static nl.s22k.chess.ChessConstants.ROOK;
 
 import nl.s22k.chess.Assert;
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.Statistics;
 import nl.s22k.chess.Util;
 import nl.s22k.chess.engine.EngineConstants;
 import nl.s22k.chess.move.MagicUtil;
@@ -73,10 +72,6 @@ public class SEEUtil {
 	private static int getSeeScore(final ChessBoard cb, final int colorToMove, final int toIndex, final int attackedPieceIndex, long allPieces,
 			long slidingMask) {
 
-		if (Statistics.ENABLED) {
-			Statistics.seeNodes++;
-		}
-
 		final int fromIndex = getSmallestAttackSeeMove(cb.pieces[colorToMove], colorToMove, toIndex, allPieces, slidingMask);
 
 		/* skip if the square isn't attacked anymore by this side */
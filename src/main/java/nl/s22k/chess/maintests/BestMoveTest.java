@@ -6,23 +6,20 @@ import java.nio.file.Files;
 import java.util.List;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
+import nl.s22k.chess.engine.SearchResult;
 import nl.s22k.chess.engine.UciOut;
 import nl.s22k.chess.move.MoveWrapper;
-import nl.s22k.chess.search.SearchUtil;
-import nl.s22k.chess.search.TTUtil;
-import nl.s22k.chess.search.ThreadData;
-import nl.s22k.chess.search.TimeUtil;
 
 public class BestMoveTest {
 
 	public static int positionTestOK, positionTestNOK;
-	public static ThreadData threadData = ThreadData.getInstance(0);
+	private static Engine engine = new Engine(1);
 
 	public static void main(String[] args) {
 		UciOut.noOutput = true;
-		TTUtil.init(false);
 
 		doTest(getEpdStrings("WAC-201.epd"));
 		// doTest(getEpdStrings("EigenmannEndgame.epd"));
@@ -44,16 +41,14 @@ public class BestMoveTest {
 
 	private static void doTest(List<String> epdStrings) {
 		int correctCounter = 0;
+		ChessBoard cb = new ChessBoard();
 		for (String epdString : epdStrings) {
 			EPD epd = new EPD(epdString);
-			ChessBoard cb = ChessBoardInstances.get(0);
 			ChessBoardUtil.setFen(epd.getFen(), cb);
 
-			TimeUtil.reset();
-			TimeUtil.setSimpleTimeWindow(5000);
-			SearchUtil.start(cb);
+			SearchResult result = engine.search(cb, SearchLimits.thinkingTime(5000)).join();
 
-			MoveWrapper bestMove = new MoveWrapper(threadData.getBestMove());
+			MoveWrapper bestMove = new MoveWrapper(result.bestMove);
 			if (epd.isBestMove()) {
 				if (epd.moveEquals(bestMove)) {
 					System.out.println(epd.getId() + " BM OK");
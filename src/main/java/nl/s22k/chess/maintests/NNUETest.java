@@ -0,0 +1,137 @@
+package nl.s22k.chess.maintests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.engine.Bench;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
+import nl.s22k.chess.engine.SearchResult;
+import nl.s22k.chess.engine.UciOut;
+import nl.s22k.chess.eval.NNUE;
+import nl.s22k.chess.eval.NNUEAccumulator;
+import nl.s22k.chess.move.MoveGenerator;
+import nl.s22k.chess.search.ThreadData;
+
+/**
+ * Loads a random network, tests the incremental accumulator-updates of all moves (castling, ep and promotions) against a full calculation
+ * and compares the speed of a search using the normal evaluation and the nnue.
+ */
+public class NNUETest {
+
+	private static final int HIDDEN_SIZE = 256;
+	private static final int PERFT_DEPTH = 3;
+	private static final int SEARCH_DEPTH = 9;
+
+	private static final String[] PERFT_FENS = { "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+			"r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1" };
+
+	private static final ThreadData threadData = new ThreadData(0);
+	private static long testedPositions;
+
+	public static void main(String[] args) throws IOException {
+		final Path file = Files.createTempFile("chess22k", ".nnue");
+		writeRandomNetwork(file);
+		NNUE.load(file);
+		Files.delete(file);
+
+		final NNUEAccumulator accumulator = new NNUEAccumulator(NNUE.hiddenSize);
+		final ChessBoard cb = new ChessBoard();
+		for (String fen : PERFT_FENS) {
+			testUpdates(fen, cb, accumulator);
+		}
+		for (String fen : Bench.FENS) {
+			testUpdates(fen, cb, accumulator);
+		}
+		System.out.println("accumulators ok for " + testedPositions + " positions");
+
+		UciOut.noOutput = true;
+		final Engine engine = new Engine(1);
+		engine.tt.setSizeMB(16);
+		for (int i = 0; i < 2; i++) {
+			NNUE.enabled = false;
+			search("classic", engine);
+			NNUE.enabled = true;
+			search("nnue   ", engine);
+		}
+		engine.shutdown();
+	}
+
+	private static void testUpdates(final String fen, final ChessBoard cb, final NNUEAccumulator accumulator) {
+		ChessBoardUtil.setFen(fen, cb);
+		accumulator.refresh(cb);
+		cb.accumulator = accumulator;
+		testUpdates(cb, PERFT_DEPTH);
+		cb.accumulator = null;
+	}
+
+	private static void testUpdates(final ChessBoard cb, final int depth) {
+		testedPositions++;
+		if (!cb.accumulator.isUpToDate(cb)) {
+			throw new RuntimeException("Incorrect accumulator: " + cb);
+		}
+		if (depth == 0) {
+			return;
+		}
+
+		threadData.startPly();
+		MoveGenerator.generateMoves(threadData, cb);
+		MoveGenerator.generateAttacks(threadData, cb);
+		while (threadData.hasNext()) {
+			final int move = threadData.next();
+			if (!cb.isLegal(move)) {
+				continue;
+			}
+			cb.doMove(move);
+			testUpdates(cb, depth - 1);
+			cb.undoMove(move);
+		}
+		threadData.endPly();
+
+		if (cb.checkingPieces == 0) {
+			cb.doNullMove();
+			testUpdates(cb, 0);
+			cb.undoNullMove();
+		}
+	}
+
+	private static void search(final String description, final Engine engine) {
+		final ChessBoard cb = new ChessBoard();
+		long nodes = 0;
+		long timeMs = 0;
+		for (String fen : Bench.FENS) {
+			ChessBoardUtil.setFen(fen, cb);
+			engine.newGame();
+			final SearchResult result = engine.search(cb, SearchLimits.depth(SEARCH_DEPTH)).join();
+			nodes += result.nodes;
+			timeMs += result.timeMs;
+		}
+		System.out.println(String.format("%s nodes %9d time %6d ms nps %7d", description, nodes, timeMs, nodes * 1000 / Math.max(1, timeMs)));
+	}
+
+	/**
+	 * Small weights so the accumulators do not overflow
+	 */
+	private static void writeRandomNetwork(final Path file) throws IOException {
+		final SplittableRandom random = new SplittableRandom(0);
+		final ByteBuffer buffer = ByteBuffer.allocate(((NNUE.FEATURES + 3) * HIDDEN_SIZE + 1) * 2).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < NNUE.FEATURES * HIDDEN_SIZE; i++) {
+			buffer.putShort((short) random.nextInt(-40, 41));
+		}
+		for (int i = 0; i < HIDDEN_SIZE; i++) {
+			buffer.putShort((short) random.nextInt(0, 128));
+		}
+		for (int i = 0; i < 2 * HIDDEN_SIZE; i++) {
+			buffer.putShort((short) random.nextInt(-64, 65));
+		}
+		buffer.putShort((short) 0);
+		Files.write(file, buffer.array());
+	}
+
+}
@@ -3,13 +3,10 @@ package nl.s22k.chess.maintests;
 import java.util.List;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
-import nl.s22k.chess.Statistics;
-import nl.s22k.chess.engine.EngineConstants;
-import nl.s22k.chess.engine.MainEngine;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
 import nl.s22k.chess.engine.UciOut;
-import nl.s22k.chess.search.SearchUtil;
 
 public class NodeCounter {
 
@@ -18,11 +15,11 @@ public class NodeCounter {
 
 	public static void main(String[] args) {
 
-		ChessBoard cb = ChessBoardInstances.get(0);
+		Engine engine = new Engine(1);
+		ChessBoard cb = new ChessBoard();
 
-		MainEngine.maxDepth = MAX_PLY;
 		UciOut.noOutput = true;
-		EngineConstants.POWER_2_TT_ENTRIES = 2;
+		engine.tt.setPower2Entries(2);
 
 		long totalNodesSearched = 0;
 
@@ -30,11 +27,9 @@ public class NodeCounter {
 		for (int index = 0; index < NUMBER_OF_POSITIONS; index++) {
 			System.out.println(index);
 			String epdString = epdStrings.get(index + 20);
-			Statistics.reset();
 			EPD epd = new EPD(epdString);
 			ChessBoardUtil.setFen(epd.getFen(), cb);
-			SearchUtil.start(cb);
-			totalNodesSearched += ChessBoardUtil.calculateTotalMoveCount();
+			totalNodesSearched += engine.search(cb, SearchLimits.depth(MAX_PLY)).join().nodes;
 		}
 		System.out.println("Total   " + totalNodesSearched);
 		System.out.println("Average " + totalNodesSearched / NUMBER_OF_POSITIONS);
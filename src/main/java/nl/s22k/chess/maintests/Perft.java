@@ -8,7 +8,6 @@ import java.util.concurrent.TimeUnit;
 
 import nl.s22k.chess.Assert;
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.ChessConstants;
 import nl.s22k.chess.engine.EngineConstants;
@@ -25,9 +24,6 @@ public class Perft {
 			System.out.println("Generation of underpromotions is disabled!");
 		}
 
-		ChessBoardInstances.init(8);
-		ThreadData.initInstances(8);
-
 		int threadNr = 0;
 		PerftWorker kiwi = new PerftWorker("Kiwi-pete", threadNr++);
 		kiwi.addPosition("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -", 4085603, 4);
@@ -131,8 +127,8 @@ public class Perft {
 		public void run() {
 			System.out.println("Start " + name);
 
-			ChessBoard cb = ChessBoardInstances.get(threadNumber);
-			ThreadData threadData = ThreadData.getInstance(threadNumber);
+			ChessBoard cb = new ChessBoard();
+			ThreadData threadData = new ThreadData(threadNumber);
 			for (PerftPosition position : positions) {
 				ChessBoardUtil.setFen(position.fen, cb);
 				Assert.isTrue(position.moveCount == perft(cb, threadData, position.depth));
@@ -5,7 +5,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.ChessConstants;
 import nl.s22k.chess.eval.EvalUtil;
@@ -18,9 +17,6 @@ public class PerftMultiThreaded {
 	private static final int DEPTH = 5;
 
 	public static void main(String[] args) {
-		ChessBoardInstances.init(32);
-		ThreadData.initInstances(32);
-
 		for (int run : runs) {
 			ExecutorService executor = Executors.newFixedThreadPool(run);
 			long start = System.currentTimeMillis();
@@ -74,8 +70,8 @@ public class PerftMultiThreaded {
 		}
 
 		public void run() {
-			final ThreadData threadData = ThreadData.getInstance(threadNumber);
-			final ChessBoard cb = ChessBoardInstances.get(threadNumber);
+			final ThreadData threadData = new ThreadData(threadNumber);
+			final ChessBoard cb = new ChessBoard();
 			ChessBoardUtil.setFen(ChessConstants.FEN_START, cb);
 			perft(cb, threadData, DEPTH);
 		};
@@ -2,7 +2,6 @@ package nl.s22k.chess.maintests;
 
 import nl.s22k.chess.Assert;
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.engine.EngineConstants;
 import nl.s22k.chess.move.MoveGenerator;
@@ -11,8 +10,8 @@ import nl.s22k.chess.search.ThreadData;
 
 public class QPerft {
 
-	private static ThreadData threadData = ThreadData.getInstance(0);
-	private static ChessBoard cb = ChessBoardInstances.get(0);
+	private static ThreadData threadData = new ThreadData(0);
+	private static ChessBoard cb = new ChessBoard();
 
 	public static void main(String args[]) {
 		if (!EngineConstants.GENERATE_BR_PROMOTIONS) {
@@ -4,13 +4,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.Util;
-import nl.s22k.chess.engine.EngineConstants;
+import nl.s22k.chess.engine.Engine;
 import nl.s22k.chess.search.NegamaxUtil;
 import nl.s22k.chess.search.QuiescenceUtil;
-import nl.s22k.chess.search.TTUtil;
 import nl.s22k.chess.search.ThreadData;
 import nl.s22k.chess.texel.Tuner;
 
@@ -20,19 +18,20 @@ import nl.s22k.chess.texel.Tuner;
  */
 public class QSearchTest {
 
-	private static ThreadData threadData = new ThreadData(0);
-
 	public static void main(String[] args) {
 
-		ChessBoard cb = ChessBoardInstances.get(0);
+		Engine engine = new Engine(1);
+		ChessBoard cb = new ChessBoard();
+		ThreadData threadData = engine.getThreadData(0);
 
 		// read all fens, including score
 		Map<String, Double> fens = Tuner.loadFens("d:\\backup\\chess\\epds\\violent.epd", false, true);
 		System.out.println("Fens found : " + fens.size());
 
-		// NegamaxUtil.isRunning = true;
-		EngineConstants.POWER_2_TT_ENTRIES = 1;
-		TTUtil.init(false);
+		engine.setRunning(true);
+		threadData.resetStopCheck();
+		engine.tt.setPower2Entries(1);
+		engine.tt.init(false);
 
 		double totalPositions = 0;
 		double sameScore = 0;
@@ -45,7 +44,7 @@ public class QSearchTest {
 			}
 			totalPositions++;
 			int searchScore = NegamaxUtil.calculateBestMove(cb, threadData, 0, 1, Util.SHORT_MIN, Util.SHORT_MAX, 0);
-			TTUtil.clearValues();
+			engine.tt.clearValues();
 			int qScore = QuiescenceUtil.calculateBestMove(cb, threadData, Util.SHORT_MIN, Util.SHORT_MAX);
 
 			if (searchScore == qScore) {
@@ -0,0 +1,36 @@
+package nl.s22k.chess.maintests;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
+import nl.s22k.chess.engine.UciOut;
+
+/**
+ * Measures the overhead of starting and finishing a search by repeatedly searching to depth 1, which is what dominates at bullet
+ * time-controls when many threads are used.
+ */
+public class SearchStartBenchmark {
+
+	private static final int SEARCHES = 2000;
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) {
+		final int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+
+		UciOut.noOutput = true;
+		Engine engine = new Engine(threadCount);
+		engine.tt.setSizeMB(1);
+		ChessBoard cb = new ChessBoard();
+		ChessBoardUtil.setStartFen(cb);
+
+		for (int run = 0; run < RUNS; run++) {
+			final long start = System.nanoTime();
+			for (int i = 0; i < SEARCHES; i++) {
+				engine.search(cb, SearchLimits.depth(1)).join();
+			}
+			System.out.println(String.format("threads %d search %d us", threadCount, (System.nanoTime() - start) / SEARCHES / 1000));
+		}
+	}
+
+}
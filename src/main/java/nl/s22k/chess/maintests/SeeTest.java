@@ -4,7 +4,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.ChessConstants;
 import nl.s22k.chess.Util;
@@ -25,7 +24,7 @@ public class SeeTest {
 
 	public static void main(String[] args) {
 
-		ChessBoard cb = ChessBoardInstances.get(0);
+		ChessBoard cb = new ChessBoard();
 
 		// read all fens, including score
 		Map<String, Double> fens = Tuner.loadFens("d:\\backup\\chess\\epds\\violent.epd", false, true);
@@ -0,0 +1,70 @@
+package nl.s22k.chess.maintests;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.Statistics;
+import nl.s22k.chess.engine.Bench;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
+import nl.s22k.chess.engine.SearchResult;
+import nl.s22k.chess.engine.UciOut;
+
+/**
+ * Compares the pawn-cache hit-rate and nps of own pawn-caches per search-thread with one shared pawn-cache of the same total size. Every
+ * position of the bench is searched for a fixed time. The thread-counts can be given as arguments.
+ */
+public class SharedPawnCacheBenchmark {
+
+	private static final int[] THREAD_COUNTS = { 1, 8, 32, 64 };
+	private static final int THINKING_TIME_MS = 2000;
+	private static final int HASH_MB = 256;
+
+	public static void main(String[] args) {
+		UciOut.noOutput = true;
+		Statistics.enabled = true;
+
+		int[] threadCounts = THREAD_COUNTS;
+		if (args.length > 0) {
+			threadCounts = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				threadCounts[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		final Engine engine = new Engine(1);
+		engine.tt.setSizeMB(HASH_MB);
+		// warm up the jvm
+		doTest(engine, 1, false);
+
+		for (int threadCount : threadCounts) {
+			doTest(engine, threadCount, false);
+			doTest(engine, threadCount, true);
+		}
+		engine.shutdown();
+	}
+
+	private static void doTest(final Engine engine, final int threadCount, final boolean shared) {
+		engine.setThreadCount(threadCount);
+		engine.setSharedPawnCache(shared);
+
+		final ChessBoard cb = new ChessBoard();
+		long nodes = 0;
+		long timeMs = 0;
+		long hits = 0;
+		long misses = 0;
+		for (String fen : Bench.FENS) {
+			ChessBoardUtil.setFen(fen, cb);
+			engine.newGame();
+			final SearchResult result = engine.search(cb, SearchLimits.thinkingTime(THINKING_TIME_MS)).join();
+			nodes += result.nodes;
+			timeMs += result.timeMs;
+			final Statistics statistics = Statistics.merge(engine);
+			hits += statistics.pawnEvalCacheHits;
+			misses += statistics.pawnEvalCacheMisses;
+		}
+
+		System.out.println(String.format("threads %2d %-6s pawn-cache hits %5.2f%% misses %10d nps %9d", threadCount, shared ? "shared" : "own",
+				hits * 100.0 / Math.max(1, hits + misses), misses, nodes * 1000 / Math.max(1, timeMs)));
+	}
+
+}
@@ -0,0 +1,69 @@
+package nl.s22k.chess.maintests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
+import nl.s22k.chess.engine.SearchResult;
+import nl.s22k.chess.engine.UciOut;
+import nl.s22k.chess.move.MoveWrapper;
+import nl.s22k.chess.search.SharedTranspositionTable;
+import nl.s22k.chess.search.TTUtil;
+
+/**
+ * Searches several games at the same time, first using own tables and then using partitions of one shared table of the same total size.
+ * The results should be comparable and the partitions should be returned afterwards.
+ */
+public class SharedTTTest {
+
+	private static final int GAMES = 4;
+	private static final int QUOTA_MB = 4;
+	private static final int MAX_PLY = 10;
+
+	public static void main(String[] args) {
+		UciOut.noOutput = true;
+
+		List<String> epdStrings = BestMoveTest.getEpdStrings("WAC-201.epd");
+		Engine[] engines = new Engine[GAMES];
+		ChessBoard[] boards = new ChessBoard[GAMES];
+		for (int i = 0; i < GAMES; i++) {
+			engines[i] = new Engine(1);
+			engines[i].tt.setSizeMB(QUOTA_MB);
+			boards[i] = new ChessBoard();
+			ChessBoardUtil.setFen(new EPD(epdStrings.get(i)).getFen(), boards[i]);
+		}
+
+		doTest("own", engines, boards);
+
+		SharedTranspositionTable shared = new SharedTranspositionTable(GAMES * QUOTA_MB, TTUtil.STORAGE_OFF_HEAP, false);
+		for (Engine engine : engines) {
+			engine.tt.attach(shared, QUOTA_MB);
+		}
+		System.out.println("shared free " + shared.getFreeMB() + " mb");
+		doTest("shared", engines, boards);
+		for (Engine engine : engines) {
+			engine.tt.detach();
+		}
+		System.out.println("shared free " + shared.getFreeMB() + " mb");
+	}
+
+	private static void doTest(String description, Engine[] engines, ChessBoard[] boards) {
+		List<CompletableFuture<SearchResult>> results = new ArrayList<>();
+		final long start = System.currentTimeMillis();
+		for (int i = 0; i < engines.length; i++) {
+			engines[i].newGame();
+			results.add(engines[i].search(boards[i], SearchLimits.depth(MAX_PLY)));
+		}
+		for (int i = 0; i < engines.length; i++) {
+			SearchResult result = results.get(i).join();
+			System.out.println(String.format("%-6s game %d bestmove %-6s score %5d nodes %9d hashfull %4d", description, i,
+					new MoveWrapper(result.bestMove), result.score, result.nodes, engines[i].tt.getUsagePermill()));
+		}
+		System.out.println(description + " " + (System.currentTimeMillis() - start) + " ms");
+	}
+
+}
@@ -0,0 +1,67 @@
+package nl.s22k.chess.maintests;
+
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.search.TTUtil;
+import nl.s22k.chess.search.TranspositionTable;
+
+/**
+ * Measures the store and probe throughput of the tt-layouts using random keys on a table that is much larger than the cpu-caches
+ */
+public class TTBenchmark {
+
+	private static final int POWER_2_TT_ENTRIES = 23;
+	private static final int OPERATIONS = 10_000_000;
+	private static final int RUNS = 5;
+
+	private static long randomState;
+
+	private static TranspositionTable tt = new Engine(1).tt;
+
+	public static void main(String[] args) {
+		tt.setPower2Entries(POWER_2_TT_ENTRIES);
+		for (String storage : new String[] { TTUtil.STORAGE_HEAP, TTUtil.STORAGE_OFF_HEAP }) {
+			for (String layout : new String[] { TTUtil.LAYOUT_BUCKETS, TTUtil.LAYOUT_CLUSTERS }) {
+				tt.setStorage(storage);
+				tt.setLayout(layout);
+				tt.init(true);
+				for (int i = 0; i < RUNS; i++) {
+					doTest(storage + " " + layout);
+				}
+			}
+		}
+	}
+
+	private static void doTest(String description) {
+		tt.clearValues();
+
+		randomState = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < OPERATIONS; i++) {
+			tt.addValue(nextLong(), i & 0xfff, 0, 1 + (i & 31), TTUtil.FLAG_LOWER, i & 0x3fffff, i & 0xfff);
+		}
+		final long storeNs = System.nanoTime() - start;
+
+		// probe the same keys: the last stored keys will be found
+		randomState = 0;
+		int hits = 0;
+		start = System.nanoTime();
+		for (int i = 0; i < OPERATIONS; i++) {
+			if (tt.getValue(nextLong()) != 0) {
+				hits++;
+			}
+		}
+		final long probeNs = System.nanoTime() - start;
+
+		System.out.println(String.format("%-18s stores %4d/us probes %4d/us hits %d%%", description, OPERATIONS * 1000L / storeNs,
+				OPERATIONS * 1000L / probeNs, hits * 100L / OPERATIONS));
+	}
+
+	// splitmix64
+	private static long nextLong() {
+		long z = randomState += 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,55 @@
+package nl.s22k.chess.maintests;
+
+import java.util.List;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
+import nl.s22k.chess.engine.UciOut;
+
+/**
+ * Compares the nps with and without tt-prefetching in doMove. Runs are alternated so both settings suffer equally from jit-warmup and
+ * noise. The tt is much larger than the cpu-caches. The best run of each setting is
+ * reported, which is the least disturbed by other processes.
+ */
+public class TTPrefetchBenchmark {
+
+	private static final int MAX_PLY = 12;
+	private static final int NUMBER_OF_POSITIONS = 100;
+	private static final int POWER_2_TT_ENTRIES = 22;
+	private static final int RUNS = 6;
+
+	public static void main(String[] args) {
+
+		Engine engine = new Engine(1);
+		ChessBoard cb = new ChessBoard();
+
+		UciOut.noOutput = true;
+		engine.tt.setPower2Entries(POWER_2_TT_ENTRIES);
+		engine.tt.init(false);
+
+		List<String> epdStrings = BestMoveTest.getEpdStrings("WAC-201.epd");
+
+		final long[] bestNps = new long[2];
+		for (int run = 0; run < RUNS; run++) {
+			for (boolean prefetch : new boolean[] { false, true }) {
+				engine.setTTPrefetch(prefetch);
+				long totalNodes = 0;
+				long totalNs = 0;
+				for (int index = 0; index < NUMBER_OF_POSITIONS; index++) {
+					engine.tt.clearValues();
+					ChessBoardUtil.setFen(new EPD(epdStrings.get(index)).getFen(), cb);
+					final long start = System.nanoTime();
+					totalNodes += engine.search(cb, SearchLimits.depth(MAX_PLY)).join().nodes;
+					totalNs += System.nanoTime() - start;
+				}
+				final long nps = totalNodes * 1_000_000_000L / totalNs;
+				bestNps[prefetch ? 1 : 0] = Math.max(bestNps[prefetch ? 1 : 0], nps);
+				System.out.println(String.format("prefetch %-5s nodes %10d nps %8d", prefetch, totalNodes, nps));
+			}
+		}
+		System.out.println(String.format("best nps without %d, with %d (%+.1f%%)", bestNps[0], bestNps[1], (bestNps[1] * 100.0 / bestNps[0]) - 100));
+	}
+
+}
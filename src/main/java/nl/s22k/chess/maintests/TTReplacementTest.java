@@ -0,0 +1,72 @@
+package nl.s22k.chess.maintests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.Statistics;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
+import nl.s22k.chess.engine.SearchResult;
+import nl.s22k.chess.engine.UciOut;
+import nl.s22k.chess.search.TTUtil;
+
+/**
+ * A/B-test of the tt-replacement schemes. Plays a long game using fixed depth searches and a small hash, and searches the same positions using
+ * the other scheme. Reports the nodes and time needed to reach the depth (and the tt hit-rate if statistics are enabled).
+ */
+public class TTReplacementTest {
+
+	private static final int DEPTH = 10;
+	private static final int MAX_PLIES = 400;
+	private static final int POWER_2_TT_ENTRIES = 16;
+
+	private static Engine engine = new Engine(1);
+
+	public static void main(String[] args) {
+		UciOut.noOutput = true;
+		Statistics.enabled = true;
+		engine.tt.setPower2Entries(POWER_2_TT_ENTRIES);
+		engine.tt.init(false);
+
+		// the first run plays the game and warms up the jvm
+		List<Integer> moves = new ArrayList<>();
+		doTest(TTUtil.REPLACEMENT_AGING, moves);
+		doTest(TTUtil.REPLACEMENT_DEPTH, moves);
+		doTest(TTUtil.REPLACEMENT_AGING, moves);
+	}
+
+	private static void doTest(String replacement, List<Integer> moves) {
+		engine.tt.replaceByAge = replacement.equals(TTUtil.REPLACEMENT_AGING);
+		engine.tt.clearValues();
+
+		ChessBoard cb = new ChessBoard();
+		ChessBoardUtil.setStartFen(cb);
+
+		final boolean playGame = moves.isEmpty();
+		long totalNodes = 0;
+		long ttHits = 0;
+		long ttMisses = 0;
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < (playGame ? MAX_PLIES : moves.size()); i++) {
+			SearchResult result = engine.search(cb, SearchLimits.depth(DEPTH)).join();
+			totalNodes += result.nodes;
+			Statistics statistics = Statistics.merge(engine);
+			ttHits += statistics.ttHits;
+			ttMisses += statistics.ttMisses;
+
+			if (playGame) {
+				if (result.bestMove == 0) {
+					break;
+				}
+				moves.add(result.bestMove);
+			}
+			cb.doMove(moves.get(i));
+		}
+
+		System.out.println(String.format("%-6s positions %d depth %d nodes %d time %dms%s", replacement, moves.size(), DEPTH, totalNodes,
+				System.currentTimeMillis() - start, Statistics.enabled ? " tt-hits " + ttHits * 100 / Math.max(1, ttHits + ttMisses) + "%" : ""));
+	}
+
+}
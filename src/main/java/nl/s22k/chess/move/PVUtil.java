@@ -4,16 +4,17 @@ import java.util.Arrays;
 
 import nl.s22k.chess.ChessBoard;
 import nl.s22k.chess.search.TTUtil;
+import nl.s22k.chess.search.TranspositionTable;
 
 public class PVUtil {
 
-	public static void set(final ChessBoard cb, final int[] moves, final int bestMove) {
+	public static void set(final ChessBoard cb, final TranspositionTable tt, final int[] moves, final int bestMove) {
 		Arrays.fill(moves, 0);
 		moves[0] = bestMove;
 		cb.doMove(bestMove);
 
 		for (int i = 1; i < moves.length; i++) {
-			long ttValue = TTUtil.getValue(cb.zobristKey);
+			long ttValue = tt.getValue(cb.zobristKey);
 			if (ttValue == 0) {
 				break;
 			}
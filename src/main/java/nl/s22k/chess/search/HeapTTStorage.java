@@ -0,0 +1,39 @@
+package nl.s22k.chess.search;
+
+import java.util.Arrays;
+
+public class HeapTTStorage implements TTStorage {
+
+	// arrays cannot be larger than this on most jvms
+	public static final long MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+	private final long[] keys;
+
+	public HeapTTStorage(final long length) {
+		if (length > MAX_LENGTH) {
+			throw new RuntimeException("Hash-size too large for heap storage, use off-heap storage instead");
+		}
+		keys = new long[(int) length];
+	}
+
+	@Override
+	public long get(final long index) {
+		return keys[(int) index];
+	}
+
+	@Override
+	public void set(final long index, final long value) {
+		keys[(int) index] = value;
+	}
+
+	@Override
+	public long length() {
+		return keys.length;
+	}
+
+	@Override
+	public void clear(final long fromIndex, final long toIndex) {
+		Arrays.fill(keys, (int) fromIndex, (int) toIndex, 0);
+	}
+
+}
@@ -5,6 +5,7 @@ import nl.s22k.chess.ChessBoard;
 import nl.s22k.chess.ChessConstants;
 import nl.s22k.chess.Statistics;
 import nl.s22k.chess.Util;
+import nl.s22k.chess.engine.Engine;
 import nl.s22k.chess.engine.EngineConstants;
 import nl.s22k.chess.eval.EvalConstants;
 import nl.s22k.chess.eval.EvalUtil;
@@ -36,12 +37,11 @@ public final class NegamaxUtil {
 		}
 	}
 
-	public static boolean isRunning = false;
-
 	public static int calculateBestMove(final ChessBoard cb, final ThreadData threadData, final int ply, int depth, int alpha, int beta,
 			final int nullMoveCounter) {
 
-		if (!isRunning) {
+		final Engine engine = threadData.engine;
+		if (!threadData.isRunning(cb)) {
 			return ChessConstants.SCORE_NOT_RUNNING;
 		}
 
@@ -54,7 +54,7 @@ public final class NegamaxUtil {
 		final int alphaOrig = alpha;
 
 		// get extensions
-		depth += extensions(cb);
+		depth += extensions(cb, threadData);
 
 		/* mate-distance pruning */
 		if (EngineConstants.ENABLE_MATE_DISTANCE_PRUNING) {
@@ -71,7 +71,12 @@ public final class NegamaxUtil {
 		}
 
 		/* transposition-table */
-		long ttValue = TTUtil.getValue(cb.zobristKey);
+		long ttValue = engine.tt.getValue(cb.zobristKey, threadData);
+		// copied because the tt is probed again by the child-nodes
+		final int ttEval = threadData.ttEval;
+		if (Statistics.enabled) {
+			threadData.statistics.addTTValue(ttValue);
+		}
 		int score = TTUtil.getScore(ttValue, ply);
 		if (ttValue != 0) {
 			if (!EngineConstants.TEST_TT_VALUES) {
@@ -94,15 +99,17 @@ public final class NegamaxUtil {
 			}
 		}
 
-		if (Statistics.ENABLED) {
-			Statistics.abNodes++;
+		if (Statistics.enabled) {
+			threadData.statistics.abNodes++;
 		}
 
 		int eval = Util.SHORT_MIN;
+		// stored in the tt
+		int staticEval = Util.SHORT_MIN;
 		final boolean isPv = beta - alpha != 1;
 		if (!isPv && cb.checkingPieces == 0) {
 
-			eval = EvalUtil.getScore(cb, threadData);
+			eval = staticEval = EvalUtil.getScore(cb, threadData, ttEval, Util.SHORT_MIN, Util.SHORT_MAX);
 
 			/* use tt value as eval */
 			if (EngineConstants.USE_TT_SCORE_AS_EVAL) {
@@ -114,8 +121,8 @@ public final class NegamaxUtil {
 			/* static null move pruning */
 			if (EngineConstants.ENABLE_STATIC_NULL_MOVE && depth < STATIC_NULLMOVE_MARGIN.length) {
 				if (eval - STATIC_NULLMOVE_MARGIN[depth] >= beta) {
-					if (Statistics.ENABLED) {
-						Statistics.staticNullMoved[depth]++;
+					if (Statistics.enabled) {
+						threadData.statistics.staticNullMoved[depth]++;
 					}
 					return eval;
 				}
@@ -126,8 +133,8 @@ public final class NegamaxUtil {
 				if (eval + RAZORING_MARGIN[depth] < alpha) {
 					score = QuiescenceUtil.calculateBestMove(cb, threadData, alpha - RAZORING_MARGIN[depth], alpha - RAZORING_MARGIN[depth] + 1);
 					if (score + RAZORING_MARGIN[depth] <= alpha) {
-						if (Statistics.ENABLED) {
-							Statistics.razored[depth]++;
+						if (Statistics.enabled) {
+							threadData.statistics.razored[depth]++;
 						}
 						return score;
 					}
@@ -144,13 +151,13 @@ public final class NegamaxUtil {
 							: -calculateBestMove(cb, threadData, ply + 1, depth - reduction, -beta, -beta + 1, nullMoveCounter + 1);
 					cb.undoNullMove();
 					if (score >= beta) {
-						if (Statistics.ENABLED) {
-							Statistics.nullMoveHit++;
+						if (Statistics.enabled) {
+							threadData.statistics.nullMoveHit++;
 						}
 						return score;
 					}
-					if (Statistics.ENABLED) {
-						Statistics.nullMoveMiss++;
+					if (Statistics.enabled) {
+						threadData.statistics.nullMoveMiss++;
 					}
 				}
 			}
@@ -233,8 +240,8 @@ public final class NegamaxUtil {
 
 						/* late move pruning */
 						if (EngineConstants.ENABLE_LMP && depth <= 4 && movesPerformed >= depth * 3 + 3) {
-							if (Statistics.ENABLED) {
-								Statistics.lmped[depth]++;
+							if (Statistics.enabled) {
+								threadData.statistics.lmped[depth]++;
 							}
 							continue;
 						}
@@ -243,11 +250,11 @@ public final class NegamaxUtil {
 						if (EngineConstants.ENABLE_FUTILITY_PRUNING && depth < FUTILITY_MARGIN.length) {
 							if (!MoveUtil.isPawnPush78(move)) {
 								if (eval == Util.SHORT_MIN) {
-									eval = EvalUtil.getScore(cb, threadData);
+									eval = staticEval = EvalUtil.getScore(cb, threadData, ttEval, Util.SHORT_MIN, Util.SHORT_MAX);
 								}
 								if (eval + FUTILITY_MARGIN[depth] <= alpha) {
-									if (Statistics.ENABLED) {
-										Statistics.futile[depth]++;
+									if (Statistics.enabled) {
+										threadData.statistics.futile[depth]++;
 									}
 									continue;
 								}
@@ -256,9 +263,13 @@ public final class NegamaxUtil {
 					}
 
 					/* SEE Pruning */
-					else if (EngineConstants.ENABLE_SEE_PRUNING && depth <= 6 && phase == PHASE_ATTACKING
-							&& SEEUtil.getSeeCaptureScore(cb, move) < -20 * depth * depth) {
-						continue;
+					else if (EngineConstants.ENABLE_SEE_PRUNING && depth <= 6 && phase == PHASE_ATTACKING) {
+						if (Statistics.enabled) {
+							threadData.statistics.seeCalls++;
+						}
+						if (SEEUtil.getSeeCaptureScore(cb, move) < -20 * depth * depth) {
+							continue;
+						}
 					}
 				}
 
@@ -267,6 +278,9 @@ public final class NegamaxUtil {
 
 				/* draw check */
 				if (cb.isRepetition(move) || MaterialUtil.isDrawByMaterial(cb)) {
+					if (Statistics.enabled) {
+						threadData.statistics.draws++;
+					}
 					score = EvalConstants.SCORE_DRAW;
 				} else {
 					score = alpha + 1; // initial is above alpha
@@ -308,15 +322,11 @@ public final class NegamaxUtil {
 					bestScore = score;
 					bestMove = move;
 
-					if (ply == 0 && isRunning) {
-						threadData.setBestMove(cb, bestMove, alphaOrig, beta, bestScore, depth);
-					}
-
 					alpha = Math.max(alpha, score);
 					if (alpha >= beta) {
 
-						if (Statistics.ENABLED) {
-							Statistics.failHigh[Math.min(movesPerformed - 1, Statistics.failHigh.length - 1)]++;
+						if (Statistics.enabled) {
+							threadData.statistics.failHigh[Math.min(movesPerformed - 1, threadData.statistics.failHigh.length - 1)]++;
 						}
 
 						/* killer and history */
@@ -342,13 +352,13 @@ public final class NegamaxUtil {
 		/* checkmate or stalemate */
 		if (movesPerformed == 0) {
 			if (cb.checkingPieces == 0) {
-				if (Statistics.ENABLED) {
-					Statistics.staleMateCount++;
+				if (Statistics.enabled) {
+					threadData.statistics.staleMateCount++;
 				}
 				return EvalConstants.SCORE_DRAW;
 			} else {
-				if (Statistics.ENABLED) {
-					Statistics.mateCount++;
+				if (Statistics.enabled) {
+					threadData.statistics.mateCount++;
 				}
 				return Util.SHORT_MIN + ply;
 			}
@@ -366,11 +376,16 @@ public final class NegamaxUtil {
 			flag = TTUtil.FLAG_UPPER;
 		}
 
-		if (isRunning) {
-			TTUtil.addValue(cb.zobristKey, bestScore, ply, depth, flag, bestMove);
+		if (threadData.running) {
+			final int outcome = engine.tt.addValue(cb.zobristKey, bestScore, ply, depth, flag, bestMove, staticEval);
+			if (Statistics.enabled) {
+				threadData.statistics.ttStores[outcome]++;
+			}
 		}
 
-		Statistics.setBestMove(cb, bestMove, ttMove, ttValue, flag, counterMove, killer1Move, killer2Move);
+		if (Statistics.enabled) {
+			threadData.statistics.setBestMove(cb, bestMove, ttMove, ttValue, flag, counterMove, killer1Move, killer2Move);
+		}
 
 		if (EngineConstants.TEST_TT_VALUES) {
 			SearchTestUtil.testTTValues(score, bestScore, depth, bestMove, flag, ttValue, ply);
@@ -379,14 +394,114 @@ public final class NegamaxUtil {
 		return bestScore;
 	}
 
-	private static int extensions(final ChessBoard cb) {
+	/**
+	 * Searches the root-moves from the index of the (multi-pv) line on. The scores of the moves that raise alpha are stored in the
+	 * root-moves, the moves are not sorted.
+	 */
+	public static int calculateBestRootMove(final ChessBoard cb, final ThreadData threadData, int depth, int alpha, final int beta,
+			final int pvIndex) {
+
+		final Engine engine = threadData.engine;
+		if (!threadData.isRunning(cb)) {
+			return ChessConstants.SCORE_NOT_RUNNING;
+		}
+
+		final RootMoves rootMoves = threadData.rootMoves;
+		if (rootMoves.count == 0) {
+			return cb.checkingPieces == 0 ? EvalConstants.SCORE_DRAW : Util.SHORT_MIN;
+		}
+
+		final int alphaOrig = alpha;
+		depth += extensions(cb, threadData);
+
+		int bestMove = 0;
+		int bestScore = Util.SHORT_MIN - 1;
+		int movesPerformed = 0;
+		// the moves are added to the move-list so they are available as parent-move
+		threadData.startPly();
+		for (int i = pvIndex; i < rootMoves.count; i++) {
+			final int move = rootMoves.moves[i];
+			threadData.addMove(move);
+			threadData.next();
+			final long nodes = cb.moveCount;
+			cb.doMove(move);
+			movesPerformed++;
+
+			int score;
+			if (cb.isRepetition(move) || MaterialUtil.isDrawByMaterial(cb)) {
+				score = EvalConstants.SCORE_DRAW;
+			} else {
+				score = alpha + 1;
+
+				/* LMR */
+				if (EngineConstants.ENABLE_LMR && depth > 2 && movesPerformed > 1 && MoveUtil.isQuiet(move) && !MoveUtil.isPawnPush78(move)) {
+					final int reduction = Math.min(depth - 1, Math.max(LMR_TABLE[Math.min(depth, 63)][Math.min(movesPerformed, 63)], 1));
+					if (reduction != 1) {
+						score = -calculateBestMove(cb, threadData, 1, depth - reduction, -alpha - 1, -alpha, 0);
+					}
+				}
+
+				/* PVS */
+				if (EngineConstants.ENABLE_PVS && score > alpha && movesPerformed > 1) {
+					score = -calculateBestMove(cb, threadData, 1, depth - 1, -alpha - 1, -alpha, 0);
+				}
+
+				/* normal bounds */
+				if (score > alpha) {
+					score = -calculateBestMove(cb, threadData, 1, depth - 1, -beta, -alpha, 0);
+				}
+			}
+			cb.undoMove(move);
+			rootMoves.nodes[i] += cb.moveCount - nodes;
+
+			if (!threadData.running) {
+				break;
+			}
+
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+				if (score > alpha) {
+					rootMoves.setScore(cb, engine.tt, i, score);
+				}
+				if (pvIndex == 0) {
+					threadData.setBestMove(cb, bestMove, alphaOrig, beta, bestScore, depth);
+				}
+
+				alpha = Math.max(alpha, score);
+				if (alpha >= beta) {
+					break;
+				}
+			}
+		}
+		threadData.endPly();
+
+		if (!threadData.running) {
+			return ChessConstants.SCORE_NOT_RUNNING;
+		}
+
+		// other lines are not the best line of the position
+		if (pvIndex == 0) {
+			int flag = TTUtil.FLAG_EXACT;
+			if (bestScore >= beta) {
+				flag = TTUtil.FLAG_LOWER;
+			} else if (bestScore <= alphaOrig) {
+				flag = TTUtil.FLAG_UPPER;
+			}
+			engine.tt.addValue(cb.zobristKey, bestScore, 0, depth, flag, bestMove, Util.SHORT_MIN);
+		}
+
+		return bestScore;
+	}
+
+	private static int extensions(final ChessBoard cb, final ThreadData threadData) {
 		/* check-extension */
 		// TODO extend discovered checks?
 		// TODO extend checks with SEE > 0?
 		// TODO extend when mate-threat?
 		if (EngineConstants.ENABLE_CHECK_EXTENSION && cb.checkingPieces != 0) {
-			if (Statistics.ENABLED) {
-				Statistics.checkExtensions++;
+			if (Statistics.enabled) {
+				threadData.statistics.checkExtensions++;
 			}
 			return 1;
 		}
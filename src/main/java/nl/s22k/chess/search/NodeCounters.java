@@ -0,0 +1,47 @@
+package nl.s22k.chess.search;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The node-counts of the search-threads. A search-thread counts in its own board and publishes the count every couple of nodes. Every
+ * counter has 128 bytes of its own so the threads do not invalidate each others cache-lines (or the adjacent line that is prefetched).
+ */
+public final class NodeCounters {
+
+	// in longs
+	private static final int PADDING = 16;
+	private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private final int threadCount;
+	// also padded before the first counter
+	private final long[] counts;
+
+	public NodeCounters(final int threadCount) {
+		this.threadCount = threadCount;
+		counts = new long[(threadCount + 1) * PADDING];
+	}
+
+	/**
+	 * Only called by the search-thread itself
+	 */
+	public void set(final int threadNumber, final long nodes) {
+		COUNTS.setRelease(counts, (threadNumber + 1) * PADDING, nodes);
+	}
+
+	public long get(final int threadNumber) {
+		return (long) COUNTS.getAcquire(counts, (threadNumber + 1) * PADDING);
+	}
+
+	/**
+	 * Every count is read once, so the sum is never torn or larger than the actual number of nodes
+	 */
+	public long sum() {
+		long sum = 0;
+		for (int i = 0; i < threadCount; i++) {
+			sum += get(i);
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,114 @@
+package nl.s22k.chess.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stores the transposition-table outside of the java-heap, optionally backed by a memory-mapped file.<br/>
+ * A single buffer is limited to 2gb so the table is split into chunks. Chunks are allocated separately so every thread can allocate (and
+ * first-touch) its own part of the table. Chunks are aligned on cache-lines.<br/>
+ * Anonymous memory is limited by -XX:MaxDirectMemorySize, which defaults to the maximum heap-size (-Xmx).
+ */
+public class OffHeapTTStorage implements TTStorage {
+
+	// 128mb per chunk
+	public static final int CHUNK_SHIFT = 24;
+	public static final int CHUNK_LENGTH = 1 << CHUNK_SHIFT;
+	private static final long CHUNK_MASK = CHUNK_LENGTH - 1;
+
+	private static final int LARGE_PAGE_SIZE = 2 * 1024 * 1024;
+	private static final int CACHE_LINE_SIZE = 64;
+
+	private final LongBuffer[] chunks;
+	private final long length;
+	private final Path file;
+	private final boolean largePages;
+
+	/**
+	 * @param file
+	 *            if null, anonymous memory is used. A file on a hugetlbfs mount will be backed by huge pages.
+	 * @param largePages
+	 *            align anonymous memory on 2mb boundaries so the kernel can use transparent huge pages
+	 */
+	public OffHeapTTStorage(final long length, final Path file, final boolean largePages) {
+		this.length = length;
+		this.file = file;
+		this.largePages = largePages;
+		chunks = new LongBuffer[(int) ((length + CHUNK_LENGTH - 1) >>> CHUNK_SHIFT)];
+	}
+
+	public int getChunkCount() {
+		return chunks.length;
+	}
+
+	/**
+	 * Allocates and zeroes (or maps) a chunk, so the memory is first-touched by the calling thread
+	 */
+	public void allocateChunk(final int chunkIndex) {
+		final long chunkBytes = (long) getChunkLength(chunkIndex) * Long.BYTES;
+
+		if (file == null) {
+			// the aligned slice starts and ends on a (cache-line or page) boundary
+			final int alignment = largePages ? LARGE_PAGE_SIZE : CACHE_LINE_SIZE;
+			final int alignedBytes = (int) ((chunkBytes + alignment - 1) & -alignment);
+			final ByteBuffer buffer;
+			try {
+				buffer = ByteBuffer.allocateDirect(alignedBytes + alignment).alignedSlice(alignment);
+			} catch (OutOfMemoryError e) {
+				throw new RuntimeException("Off-heap hash of " + (length * Long.BYTES >>> 20)
+						+ " mb does not fit in the direct memory, increase -XX:MaxDirectMemorySize or use mapped hash-storage", e);
+			}
+			chunks[chunkIndex] = buffer.order(ByteOrder.nativeOrder()).asLongBuffer();
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			// the mapping stays valid after the channel has been closed
+			chunks[chunkIndex] = channel.map(MapMode.READ_WRITE, (long) chunkIndex * CHUNK_LENGTH * Long.BYTES, chunkBytes).order(ByteOrder.nativeOrder())
+					.asLongBuffer();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private int getChunkLength(final int chunkIndex) {
+		return (int) Math.min(CHUNK_LENGTH, length - ((long) chunkIndex << CHUNK_SHIFT));
+	}
+
+	@Override
+	public long get(final long index) {
+		return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+	}
+
+	@Override
+	public void set(final long index, final long value) {
+		chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+	}
+
+	@Override
+	public long length() {
+		return length;
+	}
+
+	@Override
+	public void clear(final long fromIndex, final long toIndex) {
+		long index = fromIndex;
+		while (index < toIndex) {
+			final LongBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+			final long chunkStart = index & ~CHUNK_MASK;
+			final int end = (int) Math.min(toIndex - chunkStart, CHUNK_LENGTH);
+			for (int i = (int) (index & CHUNK_MASK); i < end; i++) {
+				chunk.put(i, 0);
+			}
+			index = chunkStart + end;
+		}
+	}
+
+}
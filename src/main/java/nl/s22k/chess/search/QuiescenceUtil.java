@@ -16,12 +16,15 @@ public class QuiescenceUtil {
 
 	public static int calculateBestMove(final ChessBoard cb, final ThreadData threadData, int alpha, final int beta) {
 
-		if (Statistics.ENABLED) {
-			Statistics.qNodes++;
+		if (Statistics.enabled) {
+			threadData.statistics.qNodes++;
 		}
 
 		/* transposition-table */
-		long ttValue = TTUtil.getValue(cb.zobristKey);
+		long ttValue = threadData.engine.tt.getValue(cb.zobristKey, threadData);
+		if (Statistics.enabled) {
+			threadData.statistics.addTTValue(ttValue);
+		}
 		int score = TTUtil.getScore(ttValue, 64);
 		if (ttValue != 0) {
 			if (!EngineConstants.TEST_TT_VALUES) {
@@ -46,7 +49,7 @@ public class QuiescenceUtil {
 		}
 
 		/* stand-pat check */
-		int eval = EvalUtil.getScore(cb, threadData);
+		int eval = EvalUtil.getScore(cb, threadData, threadData.ttEval, alpha, beta);
 		/* use tt value as eval */
 		if (EngineConstants.USE_TT_SCORE_AS_EVAL) {
 			if (TTUtil.canRefineEval(ttValue, eval, score)) {
@@ -83,8 +86,13 @@ public class QuiescenceUtil {
 			}
 
 			// skip bad-captures
-			if (EngineConstants.ENABLE_Q_PRUNE_BAD_CAPTURES && !cb.isDiscoveredMove(MoveUtil.getFromIndex(move)) && SEEUtil.getSeeCaptureScore(cb, move) <= 0) {
-				continue;
+			if (EngineConstants.ENABLE_Q_PRUNE_BAD_CAPTURES && !cb.isDiscoveredMove(MoveUtil.getFromIndex(move))) {
+				if (Statistics.enabled) {
+					threadData.statistics.seeCalls++;
+				}
+				if (SEEUtil.getSeeCaptureScore(cb, move) <= 0) {
+					continue;
+				}
 			}
 
 			cb.doMove(move);
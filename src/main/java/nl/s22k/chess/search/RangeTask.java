@@ -0,0 +1,42 @@
+package nl.s22k.chess.search;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Executes an action for every index of a range by recursively splitting the range over the fork-join workers
+ */
+public class RangeTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int from;
+	private final int to;
+	private final int leafSize;
+	private final IntConsumer action;
+	private final AtomicInteger finished;
+
+	public RangeTask(final int from, final int to, final int leafSize, final IntConsumer action, final AtomicInteger finished) {
+		this.from = from;
+		this.to = to;
+		this.leafSize = leafSize;
+		this.action = action;
+		this.finished = finished;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= leafSize) {
+			for (int i = from; i < to; i++) {
+				action.accept(i);
+				finished.incrementAndGet();
+			}
+			return;
+		}
+
+		final int middle = from + (to - from) / 2;
+		invokeAll(new RangeTask(from, middle, leafSize, action, finished), new RangeTask(middle, to, leafSize, action, finished));
+	}
+
+}
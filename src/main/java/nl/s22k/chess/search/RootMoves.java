@@ -0,0 +1,157 @@
+package nl.s22k.chess.search;
+
+import nl.s22k.chess.ChessBoard;
+import nl.s22k.chess.ChessConstants.ScoreType;
+import nl.s22k.chess.Util;
+import nl.s22k.chess.engine.EngineConstants;
+import nl.s22k.chess.move.MoveGenerator;
+import nl.s22k.chess.move.PVUtil;
+
+/**
+ * The legal moves of the root position with their scores, pvs and node-counts. After every (multi-pv) line the moves are sorted on their
+ * score and the score of the previous iteration, so the best lines are in front.
+ */
+public final class RootMoves {
+
+	public static final int MAX_MOVES = 256;
+
+	public int count;
+	public final int[] moves = new int[MAX_MOVES];
+	// SCORE_UNKNOWN if the move did not raise alpha in this iteration
+	public final int[] scores = new int[MAX_MOVES];
+	public final int[] previousScores = new int[MAX_MOVES];
+	// nodes searched for every move in this iteration
+	public final long[] nodes = new long[MAX_MOVES];
+	private int[][] pvs = new int[MAX_MOVES][EngineConstants.PV_LENGTH];
+	private int[][] previousPvs = new int[MAX_MOVES][EngineConstants.PV_LENGTH];
+
+	// depth of the current iteration and the number of lines that have been searched at this depth
+	public int depth;
+	public int finishedLines;
+
+	// result of the last search of a line, which can be a bound if it was outside the aspiration window
+	public int line;
+	public int lineScore;
+	public ScoreType lineScoreType;
+
+	public static final int SCORE_UNKNOWN = Util.SHORT_MIN - 1;
+
+	/**
+	 * Generates the legal moves, ordered like in the normal search: tt-move, attacks and quiet moves.
+	 */
+	public void init(final ChessBoard cb, final ThreadData threadData, final int ttMove) {
+		count = 0;
+		if (ttMove != 0 && cb.isValidMove(ttMove) && cb.isLegal(ttMove)) {
+			add(ttMove);
+		}
+
+		threadData.startPly();
+		MoveGenerator.generateAttacks(threadData, cb);
+		threadData.setMVVLVAScores();
+		threadData.sort();
+		addLegalMoves(cb, threadData, ttMove);
+		threadData.endPly();
+
+		threadData.startPly();
+		MoveGenerator.generateMoves(threadData, cb);
+		threadData.setHHScores(cb.colorToMove);
+		threadData.sort();
+		addLegalMoves(cb, threadData, ttMove);
+		threadData.endPly();
+
+		for (int i = 0; i < count; i++) {
+			scores[i] = SCORE_UNKNOWN;
+			pvs[i][0] = moves[i];
+			pvs[i][1] = 0;
+		}
+		depth = 0;
+		lineScoreType = null;
+	}
+
+	private void addLegalMoves(final ChessBoard cb, final ThreadData threadData, final int ttMove) {
+		while (threadData.hasNext()) {
+			final int move = threadData.next();
+			if (move != ttMove && cb.isLegal(move)) {
+				add(move);
+			}
+		}
+	}
+
+	private void add(final int move) {
+		moves[count] = move;
+		nodes[count] = 0;
+		count++;
+	}
+
+	public void startIteration(final int depth) {
+		this.depth = depth;
+		finishedLines = 0;
+		for (int i = 0; i < count; i++) {
+			previousScores[i] = scores[i];
+			scores[i] = SCORE_UNKNOWN;
+			nodes[i] = 0;
+			System.arraycopy(pvs[i], 0, previousPvs[i], 0, EngineConstants.PV_LENGTH);
+		}
+	}
+
+	public void setLineResult(final int line, final int score, final int alpha, final int beta) {
+		this.line = line;
+		lineScore = score;
+		lineScoreType = score <= alpha ? ScoreType.UPPER : score >= beta ? ScoreType.LOWER : ScoreType.EXACT;
+	}
+
+	public void setScore(final ChessBoard cb, final TranspositionTable tt, final int index, final int score) {
+		scores[index] = score;
+		PVUtil.set(cb, tt, pvs[index], moves[index]);
+	}
+
+	/**
+	 * @return the pv of this iteration or, if the move has not raised alpha yet, of the previous iteration
+	 */
+	public int[] getPV(final int index) {
+		return scores[index] == SCORE_UNKNOWN ? previousPvs[index] : pvs[index];
+	}
+
+	public int[] getPreviousPV(final int index) {
+		return previousPvs[index];
+	}
+
+	public long getTotalNodes() {
+		long totalNodes = 0;
+		for (int i = 0; i < count; i++) {
+			totalNodes += nodes[i];
+		}
+		return totalNodes;
+	}
+
+	/**
+	 * Stable insertion-sort of the moves from the index on the score and the previous score
+	 */
+	public void sort(final int fromIndex) {
+		for (int i = fromIndex + 1; i < count; i++) {
+			final int move = moves[i];
+			final int score = scores[i];
+			final int previousScore = previousScores[i];
+			final long moveNodes = nodes[i];
+			final int[] pv = pvs[i];
+			final int[] previousPv = previousPvs[i];
+			int j = i - 1;
+			while (j >= fromIndex && (score > scores[j] || score == scores[j] && previousScore > previousScores[j])) {
+				moves[j + 1] = moves[j];
+				scores[j + 1] = scores[j];
+				previousScores[j + 1] = previousScores[j];
+				nodes[j + 1] = nodes[j];
+				pvs[j + 1] = pvs[j];
+				previousPvs[j + 1] = previousPvs[j];
+				j--;
+			}
+			moves[j + 1] = move;
+			scores[j + 1] = score;
+			previousScores[j + 1] = previousScore;
+			nodes[j + 1] = moveNodes;
+			pvs[j + 1] = pv;
+			previousPvs[j + 1] = previousPv;
+		}
+	}
+
+}
@@ -3,12 +3,11 @@ package nl.s22k.chess.search;
 import java.util.concurrent.Callable;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.Util;
+import nl.s22k.chess.engine.Engine;
 import nl.s22k.chess.engine.EngineConstants;
 import nl.s22k.chess.engine.ErrorLogger;
-import nl.s22k.chess.engine.MainEngine;
-import nl.s22k.chess.engine.UciOut;
+import nl.s22k.chess.eval.NNUE;
 
 public class SearchThread implements Callable<Void> {
 
@@ -17,28 +16,41 @@ public class SearchThread implements Callable<Void> {
 	private static final int[] SMP_SKIP_AMOUNT = { 1, 2, 1, 2, 3, 1, 2, 3, 4, 5, 1, 2, 3, 4, 5, 6 };
 	private static final int SMP_MAX_CYCLES = SMP_SKIP_AMOUNT.length;
 
+	private Engine engine;
 	private int threadNumber;
 	private ChessBoard cb;
 	private ThreadData threadData;
 
-	public SearchThread(final int threadNumber) {
+	public SearchThread(final Engine engine, final int threadNumber) {
+		this.engine = engine;
 		this.threadNumber = threadNumber;
-		cb = ChessBoardInstances.get(threadNumber);
-		threadData = ThreadData.getInstance(threadNumber);
+		cb = engine.getBoard(threadNumber);
+		threadData = engine.getThreadData(threadNumber);
 	}
 
 	@Override
 	public Void call() {
 		try {
-			Thread.currentThread().setName("chess22k-search-" + threadNumber);
+			threadData.resetStopCheck();
+			threadData.statistics.reset();
+			if (NNUE.enabled) {
+				cb.accumulator = threadData.getAccumulator();
+				cb.accumulator.refresh(cb);
+			} else {
+				cb.accumulator = null;
+			}
 			if (threadNumber == 0) {
 				runMain();
-				NegamaxUtil.isRunning = false;
+				if (threadData.getBestMove() == 0 && threadData.rootMoves.count > 0) {
+					// a legal move is sent when the search is stopped before the first iteration has finished
+					threadData.setBestMove(cb, threadData.rootMoves.moves[0], Util.SHORT_MIN, Util.SHORT_MAX, 0, 0);
+				}
+				engine.stop();
 			} else {
 				runHelper();
 			}
 		} catch (Throwable t) {
-			ErrorLogger.log(ChessBoardInstances.get(threadNumber), t, false);
+			ErrorLogger.log(engine, cb, t, false);
 		}
 		return null;
 	}
@@ -46,44 +58,63 @@ public class SearchThread implements Callable<Void> {
 	private void runMain() {
 		threadData.clearHistoryHeuristics();
 		threadData.initPV(cb);
+		final RootMoves rootMoves = threadData.rootMoves;
+		rootMoves.init(cb, threadData, threadData.getBestMove());
+		final int lines = Math.max(1, Math.min(engine.multiPV, rootMoves.count));
 
 		int depth = 0;
-		int score = 0;
 		int alpha;
 		int beta;
 		boolean failLow = false;
 
-		while (NegamaxUtil.isRunning) {
-			if (depth == MainEngine.maxDepth) {
+		while (engine.isRunning()) {
+			if (depth == engine.maxDepth) {
 				return;
 			}
 
 			depth++;
-
-			int delta = EngineConstants.ENABLE_ASPIRATION && depth > 5 && Math.abs(score) < 1000 ? EngineConstants.ASPIRATION_WINDOW_DELTA : Util.SHORT_MAX * 2;
-			alpha = Math.max(score - delta, Util.SHORT_MIN);
-			beta = Math.min(score + delta, Util.SHORT_MAX);
-
-			while (NegamaxUtil.isRunning) {
-				if (!TimeUtil.isTimeLeft() && depth != 1 && !failLow) {
-					return;
-				}
-
-				// System.out.println("start " + threadNumber + " " + depth);
-				score = NegamaxUtil.calculateBestMove(cb, threadData, 0, depth, alpha, beta, 0);
-				// System.out.println("done " + threadNumber + " " + depth);
-
-				UciOut.sendPlyInfo(threadData);
-				failLow = false;
-				if (score <= alpha) {
-					failLow = true;
-					alpha = Math.max(alpha - delta, Util.SHORT_MIN);
-					delta *= 2;
-				} else if (score >= beta) {
-					beta = Math.min(beta + delta, Util.SHORT_MAX);
-					delta *= 2;
-				} else {
-					break;
+			rootMoves.startIteration(depth);
+
+			for (int pvIndex = 0; pvIndex < lines && engine.isRunning(); pvIndex++) {
+
+				// the score of this line in the previous iteration
+				int score = rootMoves.previousScores[pvIndex];
+				int delta = EngineConstants.ENABLE_ASPIRATION && depth > 5 && Math.abs(score) < 1000 ? EngineConstants.ASPIRATION_WINDOW_DELTA
+						: Util.SHORT_MAX * 2;
+				alpha = Math.max(score - delta, Util.SHORT_MIN);
+				beta = Math.min(score + delta, Util.SHORT_MAX);
+
+				while (engine.isRunning()) {
+					if (pvIndex == 0 && !engine.timeManager.isTimeLeft() && depth != 1 && !failLow) {
+						return;
+					}
+
+					// System.out.println("start " + threadNumber + " " + depth);
+					score = NegamaxUtil.calculateBestRootMove(cb, threadData, depth, alpha, beta, pvIndex);
+					rootMoves.sort(pvIndex);
+					// System.out.println("done " + threadNumber + " " + depth);
+
+					if (threadData.running && score > alpha && score < beta) {
+						rootMoves.finishedLines = pvIndex + 1;
+					}
+					rootMoves.setLineResult(pvIndex, score, alpha, beta);
+					engine.publishNodeCount(threadNumber, cb.moveCount);
+					engine.plyListener.accept(threadData);
+					if (score <= alpha) {
+						failLow = pvIndex == 0;
+						alpha = Math.max(alpha - delta, Util.SHORT_MIN);
+						delta *= 2;
+					} else if (score >= beta) {
+						beta = Math.min(beta + delta, Util.SHORT_MAX);
+						delta *= 2;
+					} else {
+						if (EngineConstants.ENABLE_TIME_HEURISTICS && pvIndex == 0 && threadData.running) {
+							engine.timeManager.setIterationResult(depth, threadData.getBestMove(), score, failLow, rootMoves.nodes[0],
+									rootMoves.getTotalNodes());
+						}
+						failLow = false;
+						break;
+					}
 				}
 			}
 		}
@@ -91,6 +122,8 @@ public class SearchThread implements Callable<Void> {
 
 	private void runHelper() {
 		threadData.clearHistoryHeuristics();
+		final RootMoves rootMoves = threadData.rootMoves;
+		rootMoves.init(cb, threadData, 0);
 		int cycleIndex = (threadNumber - 1) % SMP_MAX_CYCLES;
 
 		int depth = 0;
@@ -98,24 +131,26 @@ public class SearchThread implements Callable<Void> {
 		int alpha;
 		int beta;
 
-		while (depth < MainEngine.maxDepth && NegamaxUtil.isRunning) {
+		while (depth < engine.maxDepth && engine.isRunning()) {
 
 			depth++;
 			if ((depth + cycleIndex) % SMP_SKIP_DEPTHS[cycleIndex] == 0) {
 				depth += SMP_SKIP_AMOUNT[cycleIndex];
-				if (depth > MainEngine.maxDepth) {
+				if (depth > engine.maxDepth) {
 					return;
 				}
 			}
+			rootMoves.startIteration(depth);
 
 			int delta = EngineConstants.ENABLE_ASPIRATION && depth > 5 && Math.abs(score) < 1000 ? EngineConstants.ASPIRATION_WINDOW_DELTA : Util.SHORT_MAX * 2;
 			alpha = Math.max(score - delta, Util.SHORT_MIN);
 			beta = Math.min(score + delta, Util.SHORT_MAX);
 
-			while (NegamaxUtil.isRunning) {
+			while (engine.isRunning()) {
 
 				// System.out.println("start " + threadNumber + " " + depth);
-				score = NegamaxUtil.calculateBestMove(cb, threadData, 0, depth, alpha, beta, 0);
+				score = NegamaxUtil.calculateBestRootMove(cb, threadData, depth, alpha, beta, 0);
+				rootMoves.sort(0);
 				// System.out.println("done " + threadNumber + " " + depth);
 
 				if (score <= alpha) {
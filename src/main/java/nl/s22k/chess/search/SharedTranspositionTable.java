@@ -0,0 +1,82 @@
+package nl.s22k.chess.search;
+
+import java.util.BitSet;
+
+/**
+ * One large table which is shared by the engines of many games in one jvm. Every engine gets its own partition of a power of 2 megabytes
+ * (its quota) using {@link TranspositionTable#attach(SharedTranspositionTable, int)}. The partitions use the xor-verified buckets of a
+ * normal table and are not locked.
+ */
+public class SharedTranspositionTable {
+
+	// 1 mb contains 2^16 entries of 2 longs
+	static final int POWER_2_ENTRIES_PER_MB = 16;
+	private static final int LONGS_PER_MB = 1 << POWER_2_ENTRIES_PER_MB + 1;
+
+	final TTStorage keys;
+	private final int sizeMB;
+
+	// one bit per mb
+	private final BitSet usedMB;
+
+	/**
+	 * @param storage
+	 *            {@link TTUtil#STORAGE_HEAP} (max 16 gb) or {@link TTUtil#STORAGE_OFF_HEAP}
+	 */
+	public SharedTranspositionTable(final int sizeMB, final String storage, final boolean largePages) {
+		if (sizeMB < 1) {
+			throw new RuntimeException("Shared hash-size must be at least 1 mb");
+		}
+		this.sizeMB = sizeMB;
+		usedMB = new BitSet(sizeMB);
+
+		final long length = (long) sizeMB * LONGS_PER_MB;
+		switch (storage) {
+		case TTUtil.STORAGE_OFF_HEAP:
+			final OffHeapTTStorage offHeapStorage = new OffHeapTTStorage(length, null, largePages);
+			for (int i = 0; i < offHeapStorage.getChunkCount(); i++) {
+				offHeapStorage.allocateChunk(i);
+			}
+			keys = offHeapStorage;
+			break;
+		case TTUtil.STORAGE_HEAP:
+			keys = new HeapTTStorage(length);
+			break;
+		default:
+			throw new RuntimeException("Unsupported shared hash-storage: " + storage);
+		}
+	}
+
+	public int getSizeMB() {
+		return sizeMB;
+	}
+
+	public synchronized int getFreeMB() {
+		return sizeMB - usedMB.cardinality();
+	}
+
+	/**
+	 * Reserves a partition which is aligned to its own size so fragmentation stays limited.
+	 *
+	 * @return the index of the first long of the partition
+	 */
+	synchronized long acquire(final int quotaMB) {
+		if (Integer.bitCount(quotaMB) != 1) {
+			throw new RuntimeException("Hash-quota must be a power of 2 mb: " + quotaMB);
+		}
+		for (int start = 0; start + quotaMB <= sizeMB; start += quotaMB) {
+			final int nextUsed = usedMB.nextSetBit(start);
+			if (nextUsed == -1 || nextUsed >= start + quotaMB) {
+				usedMB.set(start, start + quotaMB);
+				return (long) start * LONGS_PER_MB;
+			}
+		}
+		throw new RuntimeException("Shared hash has no free partition of " + quotaMB + " mb, free " + getFreeMB() + " mb");
+	}
+
+	synchronized void release(final long offset, final int quotaMB) {
+		final int start = (int) (offset / LONGS_PER_MB);
+		usedMB.clear(start, start + quotaMB);
+	}
+
+}
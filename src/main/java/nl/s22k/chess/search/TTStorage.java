@@ -0,0 +1,20 @@
+package nl.s22k.chess.search;
+
+/**
+ * Backing store of the transposition-table: a flat array of longs containing xor-ed keys and values
+ */
+public interface TTStorage {
+
+	long get(long index);
+
+	void set(long index, long value);
+
+	long length();
+
+	void clear(long fromIndex, long toIndex);
+
+	default void clear() {
+		clear(0, length());
+	}
+
+}
@@ -9,27 +9,40 @@ import nl.s22k.chess.Assert;
 import nl.s22k.chess.ChessBoard;
 import nl.s22k.chess.ChessConstants;
 import nl.s22k.chess.ChessConstants.ScoreType;
+import nl.s22k.chess.Statistics;
 import nl.s22k.chess.Util;
+import nl.s22k.chess.engine.Engine;
 import nl.s22k.chess.engine.EngineConstants;
-import nl.s22k.chess.engine.UciOptions;
+import nl.s22k.chess.eval.EvalCacheUtil;
+import nl.s22k.chess.eval.MaterialCacheUtil;
+import nl.s22k.chess.eval.NNUE;
+import nl.s22k.chess.eval.NNUEAccumulator;
+import nl.s22k.chess.eval.PawnCacheUtil;
 import nl.s22k.chess.move.MoveUtil;
 import nl.s22k.chess.move.MoveWrapper;
 import nl.s22k.chess.move.PVUtil;
 
 public final class ThreadData {
 
-	private static ThreadData[] instances;
-	static {
-		initInstances(UciOptions.threadCount);
-	}
-
+	// null if not used for searching
+	public final Engine engine;
 	public int threadNumber = 0;
 	private int ply;
 
+	// copy of the stop-flag of the engine which is only refreshed (and the node-count published) every STOP_CHECK_NODES nodes
+	public boolean running;
+	private int nodesUntilStopCheck;
+
 	public int[] pv;
 	public ScoreType scoreType;
 	public int bestScore;
 	public int depth;
+	public final RootMoves rootMoves = new RootMoves();
+	public final Statistics statistics = new Statistics();
+	// static eval of the last tt-probe, see TranspositionTable.getValue(long, ThreadData)
+	public int ttEval;
+	// created when the nnue is used
+	private NNUEAccumulator accumulator;
 
 	private final int[] nextToGenerate = new int[EngineConstants.MAX_PLIES * 2];
 	private final int[] nextToMove = new int[EngineConstants.MAX_PLIES * 2];
@@ -44,25 +57,19 @@ public final class ThreadData {
 	private final int[][] HH_MOVES = new int[2][64 * 64];
 	private final int[][] BF_MOVES = new int[2][64 * 64];
 
-	// keys, scores
-	public final int[] evalCache = new int[(1 << EngineConstants.POWER_2_EVAL_ENTRIES) * 2];
-	// keys, passedPawnsOutposts, scores
-	public final long[] pawnCache = new long[(1 << EngineConstants.POWER_2_PAWN_EVAL_ENTRIES) * 3];
-	// keys, scores
-	public final int[] materialCache = new int[(1 << EngineConstants.POWER_2_MATERIAL_ENTRIES) * 2];
+	// sized by the engine, see setCacheSizes()
+	public long[] evalCache = EvalCacheUtil.create(EngineConstants.POWER_2_EVAL_ENTRIES);
+	public long[] pawnCache = PawnCacheUtil.create(EngineConstants.POWER_2_PAWN_EVAL_ENTRIES);
+	// used instead of the pawn-cache if set, owned by the engine
+	public long[] sharedPawnCache;
+	public int[] materialCache = MaterialCacheUtil.create(EngineConstants.POWER_2_MATERIAL_ENTRIES);
 
-	public static ThreadData getInstance(int instanceNumber) {
-		return instances[instanceNumber];
-	}
-
-	public static void initInstances(int nrOfInstances) {
-		instances = new ThreadData[nrOfInstances];
-		for (int i = 0; i < instances.length; i++) {
-			instances[i] = new ThreadData(i);
-		}
+	public ThreadData(int threadNumber) {
+		this(null, threadNumber);
 	}
 
-	public ThreadData(int threadNumber) {
+	public ThreadData(Engine engine, int threadNumber) {
+		this.engine = engine;
 		clearHistoryHeuristics();
 		this.threadNumber = threadNumber;
 		if (threadNumber == 0) {
@@ -70,6 +77,30 @@ public final class ThreadData {
 		}
 	}
 
+	public NNUEAccumulator getAccumulator() {
+		if (accumulator == null || accumulator.hiddenSize != NNUE.hiddenSize) {
+			accumulator = new NNUEAccumulator(NNUE.hiddenSize);
+		}
+		return accumulator;
+	}
+
+	public void resetStopCheck() {
+		running = true;
+		nodesUntilStopCheck = 0;
+	}
+
+	/**
+	 * Also publishes the node-count of the board
+	 */
+	public boolean isRunning(final ChessBoard cb) {
+		if (--nodesUntilStopCheck <= 0) {
+			nodesUntilStopCheck = EngineConstants.STOP_CHECK_NODES;
+			engine.publishNodeCount(threadNumber, cb.moveCount);
+			running = engine.isRunning();
+		}
+		return running;
+	}
+
 	public void setBestMove(final ChessBoard cb, final int bestMove, final int alpha, final int beta, final int bestScore, final int depth) {
 
 		if (threadNumber != 0) {
@@ -86,13 +117,14 @@ public final class ThreadData {
 			scoreType = ScoreType.EXACT;
 		}
 
-		PVUtil.set(cb, pv, bestMove);
+		PVUtil.set(cb, engine.tt, pv, bestMove);
 	}
 
 	public void initPV(final ChessBoard cb) {
-		final long ttValue = TTUtil.getValue(cb.zobristKey);
+		final long ttValue = engine.tt.getValue(cb.zobristKey);
 		if (ttValue == 0 || TTUtil.getMove(ttValue) == 0) {
 			Arrays.fill(pv, 0);
+			depth = 0;
 		} else {
 			setBestMove(cb, TTUtil.getMove(ttValue), Util.SHORT_MIN, Util.SHORT_MAX, TTUtil.getScore(ttValue, 0), TTUtil.getDepth(ttValue));
 		}
@@ -112,6 +144,31 @@ public final class ThreadData {
 		Arrays.fill(materialCache, 0);
 	}
 
+	/**
+	 * Only caches of which the size has changed are re-allocated (and cleared)
+	 */
+	public void setCacheSizes(final int power2EvalEntries, final int power2PawnEntries, final int power2MaterialEntries) {
+		if (evalCache.length != (1 << power2EvalEntries) * EvalCacheUtil.ENTRY_SIZE) {
+			evalCache = EvalCacheUtil.create(power2EvalEntries);
+		}
+		if (pawnCache.length != (1 << power2PawnEntries) * PawnCacheUtil.ENTRY_SIZE) {
+			pawnCache = PawnCacheUtil.create(power2PawnEntries);
+		}
+		if (materialCache.length != (1 << power2MaterialEntries) * MaterialCacheUtil.ENTRY_SIZE) {
+			materialCache = MaterialCacheUtil.create(power2MaterialEntries);
+		}
+	}
+
+	public void clearKillerAndCounterMoves() {
+		Arrays.fill(KILLER_MOVE_1, 0);
+		Arrays.fill(KILLER_MOVE_2, 0);
+		for (int[][] colorCounterMoves : COUNTER_MOVES) {
+			for (int[] pieceCounterMoves : colorCounterMoves) {
+				Arrays.fill(pieceCounterMoves, 0);
+			}
+		}
+	}
+
 	public void clearHistoryHeuristics() {
 		Arrays.fill(HH_MOVES[WHITE], 1);
 		Arrays.fill(HH_MOVES[BLACK], 1);
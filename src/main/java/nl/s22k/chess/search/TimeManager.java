@@ -0,0 +1,217 @@
+package nl.s22k.chess.search;
+
+import nl.s22k.chess.engine.Engine;
+
+public class TimeManager {
+
+	private final Engine engine;
+
+	public long startTime = System.nanoTime();
+
+	private int movesToGo;
+	private int moveCount;
+	private int increment;
+	private long timeWindowNs;
+	private long totalTimeLeftMs;
+	private long maxTimeMs;
+	private boolean isTTHit;
+	private boolean isExactMoveTime;
+
+	// the time-window is scaled using the results of the previous iterations
+	private double timeWindowScale;
+	private int previousBestMove;
+	private int previousScore;
+	private int stableIterations;
+	private static final int MIN_HEURISTICS_DEPTH = 5;
+	private static final double MIN_TIME_WINDOW_SCALE = 0.4;
+	private static final double MAX_TIME_WINDOW_SCALE = 2.5;
+
+	// time lost between sending bestmove and the clock being stopped (set by the user) and between the deadline and sending bestmove
+	// (learned from the overshoot of previous moves)
+	private int moveOverheadMs = DEFAULT_MOVE_OVERHEAD_MS;
+	private long learnedOverheadMs = 0;
+	public static final int DEFAULT_MOVE_OVERHEAD_MS = 10;
+	// the learned overhead follows the peaks of the overshoot and decays by 1/8 every move
+	private static final int OVERHEAD_DECAY = 8;
+	private static final int MAX_LEARNED_OVERHEAD_MS = 1000;
+
+	private int timedMoves;
+	private int overshotMoves;
+	private long maxOvershootMs;
+
+	public TimeManager(final Engine engine) {
+		this.engine = engine;
+		reset();
+	}
+
+	public void reset() {
+		startTime = System.nanoTime();
+		isExactMoveTime = false;
+		movesToGo = -1;
+		// no clock, also checked by start()
+		totalTimeLeftMs = Long.MAX_VALUE;
+		maxTimeMs = Long.MAX_VALUE;
+		timeWindowNs = Long.MAX_VALUE;
+		increment = 0;
+		isTTHit = false;
+		timeWindowScale = 1;
+		previousBestMove = 0;
+		stableIterations = 0;
+	}
+
+	/**
+	 * Called by the main search-thread after every iteration with an exact score. Less time is used when the best-move is stable and has
+	 * used most of the nodes, more time is used after a fail-low or when the score drops.
+	 */
+	public void setIterationResult(final int depth, final int bestMove, final int score, final boolean failLow, final long bestMoveNodes,
+			final long nodes) {
+		stableIterations = bestMove == previousBestMove ? stableIterations + 1 : 0;
+		final int scoreDrop = depth == 1 ? 0 : Math.max(0, previousScore - score);
+		previousBestMove = bestMove;
+		previousScore = score;
+		if (depth < MIN_HEURISTICS_DEPTH) {
+			return;
+		}
+
+		// 1.2 for a new best-move, 0.8 after 4 stable iterations
+		double scale = 1.2 - 0.1 * Math.min(stableIterations, 4);
+		// up to 1.5 if the score dropped a pawn
+		scale *= 1 + Math.min(scoreDrop, 100) / 200.0;
+		if (failLow) {
+			scale *= 1.3;
+		}
+		// 0.9 if all nodes were spent on the best-move, 1.2 if only 25%
+		scale *= 1.3 - 0.4 * bestMoveNodes / Math.max(1, nodes);
+		timeWindowScale = Math.max(MIN_TIME_WINDOW_SCALE, Math.min(MAX_TIME_WINDOW_SCALE, scale));
+	}
+
+	public void start() {
+		if (isExactMoveTime) {
+			// we depend on the max-time thread
+			maxTimeMs = Math.max(1, maxTimeMs - getMoveOverheadMs());
+			return;
+		}
+		if (totalTimeLeftMs == Long.MAX_VALUE) {
+			timeWindowNs = Long.MAX_VALUE;
+			return;
+		}
+
+		final long totalTimeLeftMs = Math.max(1, this.totalTimeLeftMs - getMoveOverheadMs());
+
+		if (movesToGo == -1) {
+			int incrementWindow = increment < totalTimeLeftMs / 2 ? increment / 2 : 0;
+			if (moveCount <= 40) {
+				// first 40 moves get 50% of the total time
+				timeWindowNs = 1_000_000 * (totalTimeLeftMs / (80 - moveCount) + incrementWindow);
+			} else {
+				// every next move gets less and less time
+				timeWindowNs = 1_000_000 * (totalTimeLeftMs / 50 + incrementWindow / 2);
+			}
+		} else {
+			// if we have more than 50% of the time left, continue with next ply
+			timeWindowNs = 1_000_000 * totalTimeLeftMs / movesToGo / 2;
+		}
+
+		if (!isTTHit) {
+			timeWindowNs *= 2;
+		}
+
+		switch (movesToGo) {
+		case 1:
+			maxTimeMs = Math.max(50, totalTimeLeftMs - 200);
+			break;
+		case 2:
+		case 3:
+		case 4:
+			maxTimeMs = totalTimeLeftMs / movesToGo;
+			break;
+		default:
+			maxTimeMs = timeWindowNs / 1_000_000 * 4;
+		}
+		maxTimeMs = Math.min(maxTimeMs, totalTimeLeftMs);
+
+	}
+
+	public void setMoveOverheadMs(final int moveOverheadMs) {
+		this.moveOverheadMs = moveOverheadMs;
+	}
+
+	public long getMoveOverheadMs() {
+		return moveOverheadMs + learnedOverheadMs;
+	}
+
+	/**
+	 * Called after every search that had a deadline (max-time)
+	 *
+	 * @param overshootMs
+	 *            time between the deadline and the end of the search, negative if finished before the deadline
+	 */
+	public void addOvershoot(final long overshootMs) {
+		timedMoves++;
+		if (overshootMs > 0) {
+			overshotMoves++;
+			maxOvershootMs = Math.max(maxOvershootMs, overshootMs);
+		}
+		learnedOverheadMs = Math.min(MAX_LEARNED_OVERHEAD_MS, Math.max(overshootMs, learnedOverheadMs - (learnedOverheadMs + OVERHEAD_DECAY - 1) / OVERHEAD_DECAY));
+	}
+
+	/**
+	 * @return number of moves with a deadline, number of moves that finished after the deadline, maximum overshoot and the learned
+	 *         overhead in milliseconds
+	 */
+	public long[] getOvershootStatistics() {
+		return new long[] { timedMoves, overshotMoves, maxOvershootMs, learnedOverheadMs };
+	}
+
+	public long getMaxTimeMs() {
+		return maxTimeMs;
+	}
+
+	public void setExactMoveTime(int moveTimeMs) {
+		isExactMoveTime = true;
+		maxTimeMs = moveTimeMs;
+	}
+
+	public void setSimpleTimeWindow(final long thinkingTimeMs) {
+		// if we have more than 50% of the time left, continue with next ply
+		timeWindowNs = 1_000_000 * thinkingTimeMs / 2;
+	}
+
+	public boolean isTimeLeft() {
+		if (isExactMoveTime) {
+			return true;
+		}
+		if (engine.pondering) {
+			return true;
+		}
+		if (timeWindowNs == Long.MAX_VALUE) {
+			return true;
+		}
+		return System.nanoTime() - startTime < timeWindowNs * timeWindowScale;
+	}
+
+	public long getPassedTimeMs() {
+		return (System.nanoTime() - startTime) / 1000000;
+	}
+
+	public void setMovesToGo(int movesToGo) {
+		this.movesToGo = movesToGo;
+	}
+
+	public void setTotalTimeLeft(int totalTimeLeftMs) {
+		this.totalTimeLeftMs = totalTimeLeftMs;
+	}
+
+	public void setMoveCount(int moveCount) {
+		this.moveCount = moveCount;
+	}
+
+	public void setTTHit() {
+		this.isTTHit = true;
+	}
+
+	public void setIncrement(int increment) {
+		this.increment = increment;
+	}
+
+}
@@ -0,0 +1,693 @@
+package nl.s22k.chess.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import nl.s22k.chess.Assert;
+import nl.s22k.chess.ChessConstants;
+import nl.s22k.chess.Util;
+import nl.s22k.chess.Zobrist;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.EngineConstants;
+import nl.s22k.chess.engine.UciOut;
+import nl.s22k.chess.eval.EvalConstants;
+
+/**
+ * A transposition-table of an engine. Every engine has its own table or a partition of a {@link SharedTranspositionTable}, the values are
+ * packed and unpacked using {@link TTUtil}.
+ */
+public class TranspositionTable {
+
+	private final Engine engine;
+
+	private int keyShifts;
+
+	// key, value
+	private TTStorage keys;
+
+	// partition of a shared table: the first long, the size and a mask so buckets do not overlap other partitions
+	private SharedTranspositionTable shared;
+	private long offset = 0;
+	private int quotaMB;
+	private long bucketMask = -1;
+
+	private int power2Entries = EngineConstants.POWER_2_TT_ENTRIES;
+	private String storage = TTUtil.STORAGE_HEAP;
+	private String file = "";
+	private String layout = TTUtil.LAYOUT_BUCKETS;
+	private boolean numaAware = false;
+	private boolean largePages = false;
+
+	// every search has a new generation, which is stored in the entries
+	public int generation = 0;
+	public boolean replaceByAge = true;
+
+	// an entry of a previous search is worth this many plies less when replacing
+	private static final int AGE_DEPTH_WEIGHT = 4;
+
+	// overlapping buckets of 4 xor-ed keys and values
+	// the key-word contains the static eval (16 bits) and the key xor-ed with the value. The upper 16 bits of both (the score of the value)
+	// are folded into the lower 48 bits, so a torn value is always detected and all index-bits are verified (also the bits that are masked
+	// off by the aligned buckets of a shared table).
+	private static final int BUCKET_SIZE = 4;
+	private static final long KEY_MASK = 0xffffffffffffL;
+	private static final int EVAL = 48;
+
+	// clusters of 64 bytes (one cache-line) containing 5 values and 5 32-bits verification keys, there is no room for the static eval
+	private static final int CLUSTER_SIZE = 5;
+	private static final int CLUSTER_SHIFT = 3;
+	private static final int CLUSTER_CHECKS = 5;
+
+	public boolean isClustered = false;
+	public boolean isInitialized = false;
+
+	private static final int USAGE_SAMPLE_BUCKETS = 1000;
+	private static final int USAGE_DEPTH_RANGE = 4;
+	private static final int USAGE_DEPTH_RANGES = 8;
+	private static final int USAGE_AGES = 4;
+
+	// 65536 mb
+	private static final int MAX_POWER_2_ENTRIES = 32;
+	private static final int FILE_MAGIC = 0x22c4e55;
+	private static final int FILE_VERSION = 5;
+	private static final int FILE_BUFFER_SIZE = 1 << 20;
+
+	public TranspositionTable(final Engine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Changed settings are only applied after {@link #detach()} when using a shared table.
+	 *
+	 * @return true if a new (empty) table has been allocated
+	 */
+	public boolean init(final boolean force) {
+		if (shared != null || !force && isInitialized) {
+			return false;
+		}
+
+		isClustered = layout.equals(TTUtil.LAYOUT_CLUSTERS);
+		if (storage.equals(TTUtil.STORAGE_HEAP) && getMaxEntries(power2Entries, isClustered) > HeapTTStorage.MAX_LENGTH) {
+			while (getMaxEntries(power2Entries, isClustered) > HeapTTStorage.MAX_LENGTH) {
+				power2Entries--;
+			}
+			UciOut.sendInfoString(
+					"hash-size reduced to " + (1 << power2Entries - 16) + " mb, the maximum of heap-storage, use offheap-storage for larger sizes");
+		}
+		keyShifts = 64 - (isClustered ? getPower2Clusters(power2Entries) : power2Entries);
+		final long maxEntries = getMaxEntries(power2Entries, isClustered);
+
+		// release the old table before allocating the new one
+		keys = null;
+		switch (storage) {
+		case TTUtil.STORAGE_OFF_HEAP:
+			keys = allocateOffHeap(maxEntries, null);
+			break;
+		case TTUtil.STORAGE_MAPPED:
+			if (file.isEmpty()) {
+				throw new RuntimeException("HashFile must be set when using mapped hash-storage");
+			}
+			keys = allocateOffHeap(maxEntries, Path.of(file));
+			break;
+		default:
+			// heap pages are placed (and zeroed) by the jvm (-XX:+UseNUMA, -XX:+UseTransparentHugePages)
+			keys = new HeapTTStorage(maxEntries);
+		}
+
+		isInitialized = true;
+		return true;
+	}
+
+	private static int getPower2Clusters(final int power2Entries) {
+		// a cluster uses the space of 4 bucket-entries
+		return Math.max(1, power2Entries - 2);
+	}
+
+	private static long getMaxEntries(final int power2Entries, final boolean clustered) {
+		if (clustered) {
+			return Util.POWER_LOOKUP[getPower2Clusters(power2Entries)] << CLUSTER_SHIFT;
+		}
+		return (Util.POWER_LOOKUP[power2Entries] + BUCKET_SIZE - 1) * 2;
+	}
+
+	private OffHeapTTStorage allocateOffHeap(final long length, final Path file) {
+		final OffHeapTTStorage storage = new OffHeapTTStorage(length, file, largePages);
+		if (engine.getThreadCount() == 1) {
+			for (int i = 0; i < storage.getChunkCount(); i++) {
+				storage.allocateChunk(i);
+			}
+		} else {
+			// memory is placed on the numa-node of the thread that first touches it
+			engine.executeInParallel("allocating hash", storage.getChunkCount(), numaAware, storage::allocateChunk);
+		}
+		return storage;
+	}
+
+	/**
+	 * Uses a partition of the shared table instead of an own table. The partition is cleared and the own table is released.
+	 */
+	public void attach(final SharedTranspositionTable shared, final int quotaMB) {
+		if (engine.isSearching()) {
+			throw new IllegalStateException("Shared hash cannot be attached while searching");
+		}
+		final long offset = shared.acquire(quotaMB);
+		detach();
+		this.shared = shared;
+		this.offset = offset;
+		this.quotaMB = quotaMB;
+		keys = shared.keys;
+		isClustered = false;
+		keyShifts = 64 - (Integer.numberOfTrailingZeros(quotaMB) + SharedTranspositionTable.POWER_2_ENTRIES_PER_MB);
+		// aligned buckets: the masked index-bits are verified by the key-word
+		bucketMask = ~(BUCKET_SIZE - 1);
+		generation = 0;
+		isInitialized = true;
+		clearValues();
+	}
+
+	/**
+	 * Returns the partition to the shared table, an own table is allocated by the next {@link #init(boolean)}
+	 */
+	public void detach() {
+		if (shared == null) {
+			return;
+		}
+		shared.release(offset, quotaMB);
+		shared = null;
+		offset = 0;
+		bucketMask = -1;
+		keys = null;
+		isInitialized = false;
+	}
+
+	public boolean isShared() {
+		return shared != null;
+	}
+
+	private long getLength() {
+		return shared == null ? keys.length() : Util.POWER_LOOKUP[64 - keyShifts] << 1;
+	}
+
+	public void clearValues() {
+		final long length = getLength();
+		if (engine.getThreadCount() == 1) {
+			keys.clear(offset, offset + length);
+			return;
+		}
+
+		final int chunkCount = (int) ((length + OffHeapTTStorage.CHUNK_LENGTH - 1) / OffHeapTTStorage.CHUNK_LENGTH);
+		engine.executeInParallel("clearing hash", chunkCount, numaAware, chunk -> {
+			keys.clear(offset + (long) chunk * OffHeapTTStorage.CHUNK_LENGTH,
+					offset + Math.min(length, (long) (chunk + 1) * OffHeapTTStorage.CHUNK_LENGTH));
+		});
+	}
+
+	public long getValue(final long key) {
+
+		if (isClustered) {
+			return getClusterValue(key);
+		}
+
+		final long index = getIndex(key);
+
+		for (long i = index; i < index + BUCKET_SIZE * 2; i += 2) {
+			long xorKey = keys.get(i);
+			long value = keys.get(i + 1);
+			if (isKey(xorKey, value, key)) {
+				return value;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Also sets the static eval that has been stored with the value in threadData.ttEval, ChessConstants.CACHE_MISS if there is none
+	 */
+	public long getValue(final long key, final ThreadData threadData) {
+
+		threadData.ttEval = ChessConstants.CACHE_MISS;
+		if (isClustered) {
+			return getClusterValue(key);
+		}
+
+		final long index = getIndex(key);
+
+		for (long i = index; i < index + BUCKET_SIZE * 2; i += 2) {
+			long xorKey = keys.get(i);
+			long value = keys.get(i + 1);
+			if (isKey(xorKey, value, key)) {
+				final int eval = (int) (xorKey >> EVAL);
+				if (eval != Util.SHORT_MIN) {
+					threadData.ttEval = eval;
+				}
+				return value;
+			}
+		}
+
+		return 0;
+	}
+
+	private long getClusterValue(final long key) {
+
+		final long index = (key >>> keyShifts) << CLUSTER_SHIFT;
+
+		for (int i = 0; i < CLUSTER_SIZE; i++) {
+			final long value = keys.get(index + i);
+			if (getStoredCheck(index, i) == getCheck(key, value) && value != 0) {
+				return value;
+			}
+		}
+
+		return 0;
+	}
+
+	private static boolean isKey(final long xorKey, final long value, final long key) {
+		return ((xorKey ^ getXorKey(key, value)) & KEY_MASK) == 0;
+	}
+
+	private static long getXorKey(final long key, final long value) {
+		return (key ^ key >>> EVAL ^ value ^ value >>> EVAL) & KEY_MASK;
+	}
+
+	/**
+	 * Touches the first entry of the bucket (or cluster) of the key so it is loaded into the cpu-cache while the move is being made. The
+	 * value is returned so the load cannot be eliminated.
+	 */
+	public long prefetch(final long key) {
+		if (keys == null) {
+			return 0;
+		}
+		return keys.get(isClustered ? (key >>> keyShifts) << CLUSTER_SHIFT : getIndex(key));
+	}
+
+	private long getIndex(final long key) {
+		return offset + ((key >>> keyShifts & bucketMask) << 1);
+	}
+
+	/**
+	 * The upper bits of the key are used as index, the lower 32 bits are verified. Torn values are detected because the value is part of
+	 * the check.
+	 */
+	private int getCheck(final long key, final long value) {
+		return (int) key ^ (int) value ^ (int) (value >>> 32);
+	}
+
+	private int getStoredCheck(final long clusterIndex, final int entry) {
+		return (int) (keys.get(clusterIndex + CLUSTER_CHECKS + (entry >>> 1)) >>> ((entry & 1) << 5));
+	}
+
+	private void setStoredCheck(final long clusterIndex, final int entry, final int check) {
+		// a concurrent update of the other half can be lost, which only results in a miss
+		final long checkIndex = clusterIndex + CLUSTER_CHECKS + (entry >>> 1);
+		final int shift = (entry & 1) << 5;
+		keys.set(checkIndex, keys.get(checkIndex) & ~(0xffffffffL << shift) | (check & 0xffffffffL) << shift);
+	}
+
+	/**
+	 * @param eval
+	 *            the static eval of the position, Util.SHORT_MIN if it has not been calculated (then the previous one of the same position is
+	 *            kept)
+	 * @return how the entry was stored, one of the TTUtil.STORE_ constants
+	 */
+	public int addValue(final long key, int score, final int ply, final int depth, final int flag, final int move, int eval) {
+
+		if (EngineConstants.ASSERT) {
+			Assert.isTrue(depth >= 1);
+			Assert.isTrue(score >= Util.SHORT_MIN && score <= Util.SHORT_MAX);
+			Assert.isTrue(score != ChessConstants.SCORE_NOT_RUNNING);
+		}
+
+		// correct mate-score
+		if (score > EvalConstants.SCORE_MATE_BOUND) {
+			score = score + ply;
+		} else if (score < -EvalConstants.SCORE_MATE_BOUND) {
+			score = score - ply;
+		}
+		if (EngineConstants.ASSERT) {
+			Assert.isTrue(score >= Util.SHORT_MIN && score <= Util.SHORT_MAX);
+		}
+
+		final long value = TTUtil.createValue(score, move, flag, depth, generation);
+		if (isClustered) {
+			return addClusterValue(key, value, depth, flag);
+		}
+
+		final long index = getIndex(key);
+		int replacedDepth = Integer.MAX_VALUE;
+		long replaceIndex = index;
+		// no empty slot and no slot with the same key
+		int outcome = TTUtil.STORE_REPLACE;
+		for (long i = index; i < index + BUCKET_SIZE * 2; i += 2) {
+
+			long xorKey = keys.get(i);
+			if (xorKey == 0) {
+				outcome = TTUtil.STORE_EMPTY;
+				replaceIndex = i;
+				break;
+			}
+
+			long currentValue = keys.get(i + 1);
+
+			int currentDepth = TTUtil.getDepth(currentValue);
+			if (isKey(xorKey, currentValue, key)) {
+				if (currentDepth > depth && flag != TTUtil.FLAG_EXACT && getAge(currentValue) == 0) {
+					return TTUtil.STORE_SKIPPED;
+				}
+				if (eval == Util.SHORT_MIN) {
+					eval = (int) (xorKey >> EVAL);
+				}
+				outcome = TTUtil.STORE_UPDATE;
+				replaceIndex = i;
+				break;
+			}
+
+			// replace the lowest depth, optionally corrected by the age
+			if (replaceByAge) {
+				currentDepth -= AGE_DEPTH_WEIGHT * getAge(currentValue);
+			}
+			if (currentDepth < replacedDepth) {
+				replaceIndex = i;
+				replacedDepth = currentDepth;
+			}
+		}
+
+		keys.set(replaceIndex, (long) eval << EVAL | getXorKey(key, value));
+		keys.set(replaceIndex + 1, value);
+		return outcome;
+	}
+
+	private int addClusterValue(final long key, final long value, final int depth, final int flag) {
+
+		final long index = (key >>> keyShifts) << CLUSTER_SHIFT;
+		int replacedDepth = Integer.MAX_VALUE;
+		int replaceEntry = 0;
+		int outcome = TTUtil.STORE_REPLACE;
+		for (int i = 0; i < CLUSTER_SIZE; i++) {
+
+			long currentValue = keys.get(index + i);
+			if (currentValue == 0) {
+				outcome = TTUtil.STORE_EMPTY;
+				replaceEntry = i;
+				break;
+			}
+
+			int currentDepth = TTUtil.getDepth(currentValue);
+			if (getStoredCheck(index, i) == getCheck(key, currentValue)) {
+				if (currentDepth > depth && flag != TTUtil.FLAG_EXACT && getAge(currentValue) == 0) {
+					return TTUtil.STORE_SKIPPED;
+				}
+				outcome = TTUtil.STORE_UPDATE;
+				replaceEntry = i;
+				break;
+			}
+
+			// replace the lowest depth, optionally corrected by the age
+			if (replaceByAge) {
+				currentDepth -= AGE_DEPTH_WEIGHT * getAge(currentValue);
+			}
+			if (currentDepth < replacedDepth) {
+				replaceEntry = i;
+				replacedDepth = currentDepth;
+			}
+		}
+
+		keys.set(index + replaceEntry, value);
+		setStoredCheck(index, replaceEntry, getCheck(key, value));
+		return outcome;
+	}
+
+	/**
+	 * @return the number of searches since this value has been stored
+	 */
+	public int getAge(final long value) {
+		return (generation - TTUtil.getGeneration(value)) & 0xff;
+	}
+
+	public void incrementGeneration() {
+		generation = (generation + 1) & 0xff;
+	}
+
+	public void setPower2Entries(final int power2Entries) {
+		if (power2Entries != this.power2Entries) {
+			checkNotSearching();
+			this.power2Entries = power2Entries;
+			if (isInitialized) {
+				init(true);
+			}
+		}
+	}
+
+	public void setStorage(final String storage) {
+		if (!storage.equals(this.storage)) {
+			checkNotSearching();
+			this.storage = storage;
+			if (isInitialized && !(storage.equals(TTUtil.STORAGE_MAPPED) && file.isEmpty())) {
+				init(true);
+			}
+		}
+	}
+
+	public String getStorage() {
+		return storage;
+	}
+
+	public void setFile(final String file) {
+		if (!file.equals(this.file)) {
+			checkNotSearching();
+			this.file = file;
+			if (isInitialized && storage.equals(TTUtil.STORAGE_MAPPED)) {
+				init(true);
+			}
+		}
+	}
+
+	public void setLayout(final String layout) {
+		if (!layout.equals(this.layout)) {
+			checkNotSearching();
+			this.layout = layout;
+			if (isInitialized) {
+				init(true);
+			}
+		}
+	}
+
+	public void setNumaAware(final boolean numaAware) {
+		if (numaAware != this.numaAware) {
+			checkNotSearching();
+			this.numaAware = numaAware;
+			if (isInitialized && !storage.equals(TTUtil.STORAGE_HEAP)) {
+				init(true);
+			}
+		}
+	}
+
+	public void setLargePages(final boolean largePages) {
+		if (largePages != this.largePages) {
+			checkNotSearching();
+			this.largePages = largePages;
+			if (isInitialized && storage.equals(TTUtil.STORAGE_OFF_HEAP)) {
+				init(true);
+			}
+		}
+	}
+
+	private void checkNotSearching() {
+		if (engine.isSearching()) {
+			throw new IllegalStateException("Hash-settings cannot be changed while searching");
+		}
+	}
+
+	public void setSizeMB(int value) {
+		switch (value) {
+		case 1:
+		case 2:
+		case 4:
+		case 8:
+		case 16:
+		case 32:
+		case 64:
+		case 128:
+		case 256:
+		case 512:
+		case 1024:
+		case 2048:
+		case 4096:
+		case 8192:
+		case 16384:
+		case 32768:
+		case 65536:
+			setPower2Entries((int) (Math.log(value) / Math.log(2) + 16));
+			break;
+		default:
+			throw new RuntimeException("Hash-size must be between 1-65536 mb and a multiple of 2");
+		}
+	}
+
+	/**
+	 * Estimates the per-mille of entries stored by the current search using a strided sample of buckets
+	 */
+	public int getUsagePermill() {
+		int usage = 0;
+		final long[] values = getSampledValues();
+		for (long value : values) {
+			if (value != 0 && getAge(value) == 0) {
+				usage++;
+			}
+		}
+		return usage * 1000 / values.length;
+	}
+
+	/**
+	 * @return the values of the entries of a strided sample of buckets (or clusters), 0 if an entry is empty
+	 */
+	private long[] getSampledValues() {
+		if (isClustered) {
+			final long stride = Math.max(1, (keys.length() >>> CLUSTER_SHIFT) / USAGE_SAMPLE_BUCKETS);
+			final long[] values = new long[USAGE_SAMPLE_BUCKETS * CLUSTER_SIZE];
+			for (int i = 0; i < USAGE_SAMPLE_BUCKETS; i++) {
+				final long index = i * stride << CLUSTER_SHIFT;
+				for (int j = 0; j < CLUSTER_SIZE; j++) {
+					values[i * CLUSTER_SIZE + j] = keys.get(index + j);
+				}
+			}
+			return values;
+		}
+
+		final long stride = Math.max(1, (getLength() >>> 1) / USAGE_SAMPLE_BUCKETS);
+		final long[] values = new long[USAGE_SAMPLE_BUCKETS * BUCKET_SIZE];
+		for (int i = 0; i < USAGE_SAMPLE_BUCKETS; i++) {
+			final long index = offset + (i * stride << 1);
+			for (int j = 0; j < BUCKET_SIZE; j++) {
+				if (keys.get(index + j * 2) != 0) {
+					values[i * BUCKET_SIZE + j] = keys.get(index + j * 2 + 1);
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Samples the table and describes the usage, age, depth and flag distribution of the entries
+	 */
+	public List<String> getUsageStatistics() {
+		final long[] values = getSampledValues();
+		int used = 0;
+		final int[] ages = new int[USAGE_AGES];
+		final int[] flags = new int[3];
+		final int[] depths = new int[USAGE_DEPTH_RANGES];
+		for (long value : values) {
+			if (value != 0) {
+				used++;
+				ages[Math.min(getAge(value), USAGE_AGES - 1)]++;
+				depths[Math.min((TTUtil.getDepth(value) - 1) / USAGE_DEPTH_RANGE, USAGE_DEPTH_RANGES - 1)]++;
+				flags[TTUtil.getFlag(value)]++;
+			}
+		}
+
+		final int samples = values.length;
+		List<String> lines = new ArrayList<>();
+		final long entries = isClustered ? (keys.length() >>> CLUSTER_SHIFT) * CLUSTER_SIZE : getLength() >>> 1;
+		lines.add("hash layout " + (shared == null ? layout : "shared") + " entries " + entries + " sampled " + samples + " used " + used * 1000 / samples
+				+ " permill");
+		StringBuilder sb = new StringBuilder("hash ages (searches)");
+		for (int i = 0; i < USAGE_AGES; i++) {
+			sb.append(" " + i + (i == USAGE_AGES - 1 ? "+" : "") + ":" + ages[i] * 1000 / samples);
+		}
+		lines.add(sb.toString() + " permill");
+		sb = new StringBuilder("hash depths");
+		for (int i = 0; i < USAGE_DEPTH_RANGES; i++) {
+			sb.append(" " + (i * USAGE_DEPTH_RANGE + 1) + (i == USAGE_DEPTH_RANGES - 1 ? "+" : "-" + (i + 1) * USAGE_DEPTH_RANGE) + ":" + depths[i]);
+		}
+		lines.add(sb.toString());
+		lines.add("hash flags exact " + flags[TTUtil.FLAG_EXACT] + " upper " + flags[TTUtil.FLAG_UPPER] + " lower " + flags[TTUtil.FLAG_LOWER]);
+		return lines;
+	}
+
+	/**
+	 * Streams the table to a file. The file is gzipped if the filename ends with .gz
+	 */
+	public void saveToFile(final Path file) throws IOException {
+		if (shared != null) {
+			throw new IOException("A shared hash cannot be saved");
+		}
+		init(false);
+
+		// every stream is closed, also if a constructor of the next one throws
+		try (OutputStream fos = Files.newOutputStream(file);
+				OutputStream bos = new BufferedOutputStream(fos, FILE_BUFFER_SIZE);
+				OutputStream os = file.toString().endsWith(".gz") ? new GZIPOutputStream(bos, FILE_BUFFER_SIZE) : bos;
+				DataOutputStream dos = new DataOutputStream(os)) {
+			dos.writeInt(FILE_MAGIC);
+			dos.writeInt(FILE_VERSION);
+			dos.writeLong(Zobrist.getFingerprint());
+			dos.writeInt(power2Entries);
+			dos.writeBoolean(isClustered);
+			dos.writeInt(generation);
+			dos.writeLong(keys.length());
+			for (long i = 0; i < keys.length(); i++) {
+				dos.writeLong(keys.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Replaces the table with the contents of a file created by {@link #saveToFile(Path)}. The hash-size and layout are set to those of the stored table.
+	 * The table is only replaced if the header is valid and is cleared if the values cannot be read.
+	 */
+	public void loadFromFile(final Path file) throws IOException {
+		if (shared != null) {
+			throw new IOException("A shared hash cannot be loaded");
+		}
+		checkNotSearching();
+		try (InputStream fis = Files.newInputStream(file);
+				InputStream bis = new BufferedInputStream(fis, FILE_BUFFER_SIZE);
+				InputStream is = file.toString().endsWith(".gz") ? new GZIPInputStream(bis, FILE_BUFFER_SIZE) : bis;
+				DataInputStream dis = new DataInputStream(is)) {
+			if (dis.readInt() != FILE_MAGIC) {
+				throw new IOException("Not a hash-file: " + file);
+			}
+			if (dis.readInt() != FILE_VERSION) {
+				throw new IOException("Unsupported hash-file version: " + file);
+			}
+			if (dis.readLong() != Zobrist.getFingerprint()) {
+				throw new IOException("Hash-file was created using different zobrist-keys: " + file);
+			}
+
+			final int storedPower2Entries = dis.readInt();
+			final boolean clustered = dis.readBoolean();
+			final int storedGeneration = dis.readInt();
+			final long length = dis.readLong();
+			if (storedPower2Entries < 1 || storedPower2Entries > MAX_POWER_2_ENTRIES || length != getMaxEntries(storedPower2Entries, clustered)) {
+				throw new IOException("Invalid hash-file length: " + file);
+			}
+
+			if (!isInitialized || power2Entries != storedPower2Entries || isClustered != clustered) {
+				power2Entries = storedPower2Entries;
+				layout = clustered ? TTUtil.LAYOUT_CLUSTERS : TTUtil.LAYOUT_BUCKETS;
+				init(true);
+			}
+			try {
+				for (long i = 0; i < length; i++) {
+					keys.set(i, dis.readLong());
+				}
+			} catch (IOException e) {
+				// a partially loaded table
+				clearValues();
+				throw new IOException("Could not read the values of hash-file: " + file, e);
+			}
+			generation = storedGeneration;
+		}
+	}
+}
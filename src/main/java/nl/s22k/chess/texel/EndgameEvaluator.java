@@ -4,7 +4,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.ChessConstants;
 import nl.s22k.chess.eval.EvalUtil;
@@ -29,8 +28,8 @@ public class EndgameEvaluator {
 		ErrorCount KRBKB = new ErrorCount("KRBKB");
 		ErrorCount KRBKR = new ErrorCount("KRBKR");
 
-		ChessBoard cb = ChessBoardInstances.get(0);
-		ThreadData threadData = ThreadData.getInstance(0);
+		ChessBoard cb = new ChessBoard();
+		ThreadData threadData = new ThreadData(0);
 		for (Entry<String, Double> entry : fens.entrySet()) {
 			ChessBoardUtil.setFen(entry.getKey(), cb);
 
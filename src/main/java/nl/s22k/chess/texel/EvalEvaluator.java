@@ -10,7 +10,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
-import nl.s22k.chess.ChessBoardInstances;
+import nl.s22k.chess.ChessBoard;
 import nl.s22k.chess.eval.EvalConstants;
 import nl.s22k.chess.search.ThreadData;
 
@@ -18,6 +18,7 @@ public class EvalEvaluator {
 
 	private static int numberOfThreads = 16;
 	private static ErrorCalculator[] workers = new ErrorCalculator[numberOfThreads];
+	private static ThreadData[] threadDatas = new ThreadData[numberOfThreads];
 	private static ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
 
 	public static void main(String[] args) {
@@ -27,10 +28,9 @@ public class EvalEvaluator {
 		System.out.println("Fens found : " + fens.size());
 
 		// init workers
-		ChessBoardInstances.init(numberOfThreads);
-		ThreadData.initInstances(numberOfThreads);
 		for (int i = 0; i < numberOfThreads; i++) {
-			workers[i] = new ErrorCalculator(ChessBoardInstances.get(i), ThreadData.getInstance(i));
+			threadDatas[i] = new ThreadData(i);
+			workers[i] = new ErrorCalculator(new ChessBoard(), threadDatas[i]);
 		}
 
 		// add fens to workers
@@ -58,7 +58,7 @@ public class EvalEvaluator {
 			tuningObject.clearValues();
 			EvalConstants.initMgEg();
 			for (int i = 0; i < numberOfThreads; i++) {
-				ThreadData.getInstance(i).clearCaches();
+				threadDatas[i].clearCaches();
 			}
 			final double newError = calculateErrorMultiThreaded();
 			System.out.println(String.format("%f - %s", newError, tuningObject.name));
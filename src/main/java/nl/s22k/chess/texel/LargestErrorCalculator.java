@@ -4,7 +4,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.eval.EvalUtil;
 import nl.s22k.chess.search.ThreadData;
@@ -19,8 +18,8 @@ public class LargestErrorCalculator {
 		Map<String, Double> fens = Tuner.loadFens("d:\\backup\\chess\\epds\\quiet-labeled.epd", true, false);
 		System.out.println(fens.size() + " fens found");
 
-		ChessBoard cb = ChessBoardInstances.get(0);
-		ThreadData threadData = ThreadData.getInstance(0);
+		ChessBoard cb = new ChessBoard();
+		ThreadData threadData = new ThreadData(0);
 		for (Entry<String, Double> entry : fens.entrySet()) {
 			ChessBoardUtil.setFen(entry.getKey(), cb);
 			double error = Math.pow(entry.getValue() - ErrorCalculator.calculateSigmoid(EvalUtil.calculateScore(cb, threadData)), 2);
@@ -4,7 +4,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 
 public class TestSetStatistics {
@@ -16,7 +15,7 @@ public class TestSetStatistics {
 		Map<String, Double> fens = Tuner.loadFens("d:\\backup\\chess\\epds\\quiet-labeled.epd", true, false);
 		System.out.println(fens.size() + " fens found");
 
-		ChessBoard cb = ChessBoardInstances.get(0);
+		ChessBoard cb = new ChessBoard();
 		for (Entry<String, Double> entry : fens.entrySet()) {
 			ChessBoardUtil.setFen(entry.getKey(), cb);
 			pieceCounts[Long.bitCount(cb.allPieces)]++;
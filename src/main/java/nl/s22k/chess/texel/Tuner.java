@@ -15,20 +15,19 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.eval.EvalConstants;
 import nl.s22k.chess.move.MoveGenerator;
 import nl.s22k.chess.search.ThreadData;
-import nl.s22k.chess.search.TimeUtil;
 
 public class Tuner {
 
-	private static ChessBoard cb = ChessBoardInstances.get(0);
+	private static ChessBoard cb = new ChessBoard();
 	private static ThreadData threadData = new ThreadData(0);
 
 	private static int numberOfThreads = 16;
 	private static ErrorCalculator[] workers = new ErrorCalculator[numberOfThreads];
+	private static ThreadData[] threadDatas = new ThreadData[numberOfThreads];
 	private static ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
 
 	private static double orgError;
@@ -114,10 +113,9 @@ public class Tuner {
 		System.out.println("Fens found : " + fens.size());
 
 		// init workers
-		ChessBoardInstances.init(numberOfThreads);
-		ThreadData.initInstances(numberOfThreads);
 		for (int i = 0; i < numberOfThreads; i++) {
-			workers[i] = new ErrorCalculator(ChessBoardInstances.get(i), ThreadData.getInstance(i));
+			threadDatas[i] = new ThreadData(i);
+			workers[i] = new ErrorCalculator(new ChessBoard(), threadDatas[i]);
 		}
 
 		// add fens to workers
@@ -236,7 +234,7 @@ public class Tuner {
 	}
 
 	private static void printInfo(List<Tuning> tuningObjects) {
-		TimeUtil.reset();
+		final long start = System.currentTimeMillis();
 		System.out.println("\nNumber of threads: " + numberOfThreads);
 		System.out.println("\nValues that are being tuned:");
 
@@ -249,7 +247,7 @@ public class Tuner {
 			}
 			totalValues += tuningObject.getNumberOfTunedValues();
 		}
-		System.out.println(String.format("\nInitial error: %s (%s ms)", calculateErrorMultiThreaded(), TimeUtil.getPassedTimeMs()));
+		System.out.println(String.format("\nInitial error: %s (%s ms)", calculateErrorMultiThreaded(), System.currentTimeMillis() - start));
 		System.out.println("Total values to be tuned: " + totalValues + "\n");
 	}
 
@@ -268,7 +266,9 @@ public class Tuner {
 					}
 					tuningObject.addStep(i);
 					EvalConstants.initMgEg();
-					threadData.clearCaches();
+					for (ThreadData workerThreadData : threadDatas) {
+						workerThreadData.clearCaches();
+					}
 					double newError = calculateErrorMultiThreaded();
 					if (newError < bestError - 0.00000001) {
 						bestError = newError;
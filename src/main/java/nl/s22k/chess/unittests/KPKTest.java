@@ -4,7 +4,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.ChessConstants;
 import nl.s22k.chess.eval.KPKBitbase;
@@ -22,7 +21,7 @@ public class KPKTest {
 		int ok = 0;
 		int nok = 0;
 		for (Entry<String, Double> entry : fens.entrySet()) {
-			ChessBoard cb = ChessBoardInstances.get(0);
+			ChessBoard cb = new ChessBoard();
 			ChessBoardUtil.setFen(entry.getKey(), cb);
 			if (Long.bitCount(cb.allPieces) > 3) {
 				continue;
@@ -1,12 +1,11 @@
 package nl.s22k.chess.unittests;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
 import nl.s22k.chess.Statistics;
-import nl.s22k.chess.search.SearchUtil;
-import nl.s22k.chess.search.TTUtil;
-import nl.s22k.chess.search.TimeUtil;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
+import nl.s22k.chess.engine.UciOut;
 
 public class MainTest {
 
@@ -32,12 +31,12 @@ public class MainTest {
 
 	public static void main(String[] args) {
 
-		ChessBoard cb = ChessBoardInstances.get(0);
+		Engine engine = new Engine(1);
+		engine.plyListener = threadData -> UciOut.sendPlyInfo(engine, threadData);
+		ChessBoard cb = new ChessBoard();
 		ChessBoardUtil.setFen(FEN_STANDARD_OPENING, cb);
-		TimeUtil.setSimpleTimeWindow(5000);
-		TTUtil.init(false);
-		SearchUtil.start(cb);
-		Statistics.print();
+		engine.search(cb, SearchLimits.thinkingTime(5000)).join();
+		Statistics.print(engine);
 
 	}
 
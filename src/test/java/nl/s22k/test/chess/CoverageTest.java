@@ -3,28 +3,26 @@ package nl.s22k.test.chess;
 import org.junit.Test;
 
 import nl.s22k.chess.ChessBoard;
-import nl.s22k.chess.ChessBoardInstances;
 import nl.s22k.chess.ChessBoardUtil;
+import nl.s22k.chess.engine.Engine;
+import nl.s22k.chess.engine.SearchLimits;
 import nl.s22k.chess.move.MoveWrapper;
-import nl.s22k.chess.search.SearchUtil;
-import nl.s22k.chess.search.TTUtil;
-import nl.s22k.chess.search.TimeUtil;
 import nl.s22k.chess.unittests.MainTest;
 
 public class CoverageTest {
 
+	private Engine engine = new Engine(1);
+
 	@Test
 	public void doTest() {
-		ChessBoard cb = ChessBoardInstances.get(0);
+		ChessBoard cb = new ChessBoard();
 		ChessBoardUtil.setFen(MainTest.FEN_STANDARD_MIDDLEGAME, cb);
-		TimeUtil.setSimpleTimeWindow(5000);
-		TTUtil.init(false);
-		SearchUtil.start(cb);
+		engine.search(cb, SearchLimits.thinkingTime(5000)).join();
 	}
 
 	// @Test
 	public void doTestMovesPerformed() {
-		ChessBoard cb = ChessBoardInstances.get(0);
+		ChessBoard cb = new ChessBoard();
 		ChessBoardUtil.setStartFen(cb);
 
 		final String moves = "d2d4 d7d5 c2c4 c7c6 g1f3 g8f6 b1c3 d5c4 a2a4 b8a6 e2e3 c8g4 f1c4 e7e6 h2h3 g4h5 "
@@ -54,8 +52,7 @@ public class CoverageTest {
 		}
 
 		/* time-managed */
-		TimeUtil.setSimpleTimeWindow(5000);
-		SearchUtil.start(cb);
+		engine.search(cb, SearchLimits.thinkingTime(5000)).join();
 	}
 
 }